@@ -1,20 +1,42 @@
 package com.examportal.controller;
 
+import com.examportal.dto.AdminResultView;
 import com.examportal.entity.Exam;
+import com.examportal.entity.ExamAnalytics;
 import com.examportal.entity.ExamCategory;
 import com.examportal.entity.ExamSession;
 import com.examportal.entity.Question;
 import com.examportal.entity.Student;
-import com.examportal.entity.StudentAnswer;
 import com.examportal.repository.ExamRepository;
 import com.examportal.repository.ExamSessionRepository;
+import com.examportal.repository.ExamSessionResultRepository;
+import com.examportal.repository.ExamSessionSpecifications;
 import com.examportal.repository.StudentRepository;
+import com.examportal.service.ActiveSessionRegistry;
+import com.examportal.service.ActivityFeed;
+import com.examportal.service.AnswerVectorService;
+import com.examportal.service.DashboardSnapshotService;
+import com.examportal.service.ExamAdmissionService;
+import com.examportal.service.ExamAnalyticsService;
 import com.examportal.service.ExamService;
+import com.examportal.service.IdempotencyCache;
+import com.examportal.service.LeaderboardService;
 import com.examportal.service.QuestionService;
+import com.examportal.service.RegradeJob;
+import com.examportal.service.RegradeService;
+import com.examportal.service.ResultSnapshotService;
+import com.examportal.service.ScoreHistogram;
+import com.examportal.service.SessionAnswerArena;
+import com.examportal.service.SingleFlight;
+import com.examportal.service.SingleFlightRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,6 +48,7 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,11 +59,27 @@ import java.util.Map;
 // @PreAuthorize("hasRole('ADMIN')") // Temporarily disabled for testing
 public class AdminController {
     
+    private static final int MAX_LEADERBOARD = 100;
+    private static final int MAX_RESULT_PAGE = 200;
+    
     private final ExamService examService;
     private final StudentRepository studentRepository;
     private final QuestionService questionService;
     private final ExamSessionRepository examSessionRepository;
     private final ExamRepository examRepository;
+    private final RegradeService regradeService;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final ExamAdmissionService examAdmissionService;
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final SessionAnswerArena sessionAnswerArena;
+    private final AnswerVectorService answerVectorService;
+    private final IdempotencyCache idempotencyCache;
+    private final ResultSnapshotService resultSnapshotService;
+    private final ExamAnalyticsService examAnalyticsService;
+    private final LeaderboardService leaderboardService;
+    private final ExamSessionResultRepository examSessionResultRepository;
+    private final ActivityFeed activityFeed;
+    private final DashboardSnapshotService dashboardSnapshotService;
     
     // Test endpoint to verify security bypass
     @GetMapping("/test")
@@ -49,24 +88,21 @@ public class AdminController {
     }
     
     // Dashboard APIs
+    // Counters come from the dashboard snapshot; asOf/ageSeconds say how fresh it is
     @GetMapping("/dashboard/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
+        DashboardSnapshotService.DashboardSnapshot snapshot = dashboardSnapshotService.get();
         Map<String, Object> stats = new HashMap<>();
         
-        // Get actual counts
-        long totalExams = examService.getActiveExamCount();
-        long totalStudents = studentRepository.countActiveStudents();
-        long totalQuestions = questionService.countAllQuestions();
-        
-        // Calculate pass percentage from actual exam sessions
-        long totalSessions = examSessionRepository.count();
-        long passedSessions = examSessionRepository.countPassedSessions();
-        double passPercentage = totalSessions > 0 ? (double) passedSessions / totalSessions * 100 : 0.0;
+        // Pass percentage over completed sessions
+        double passPercentage = snapshot.completedSessions() > 0
+            ? (double) snapshot.passedSessions() / snapshot.completedSessions() * 100 : 0.0;
         
-        stats.put("totalExams", totalExams);
-        stats.put("totalStudents", totalStudents);
-        stats.put("totalQuestions", totalQuestions);
+        stats.put("totalExams", snapshot.activeExams());
+        stats.put("totalStudents", snapshot.activeStudents());
+        stats.put("totalQuestions", snapshot.totalQuestions());
         stats.put("passPercentage", Math.round(passPercentage * 10.0) / 10.0); // Round to 1 decimal place
+        putSnapshotAge(stats, snapshot);
         
         // Add some growth percentages (mock data for now)
         stats.put("examGrowth", 12.0);
@@ -77,102 +113,31 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
     
+    private static void putSnapshotAge(Map<String, Object> target, DashboardSnapshotService.DashboardSnapshot snapshot) {
+        target.put("asOf", snapshot.computedAt());
+        target.put("ageSeconds", java.time.Duration.between(snapshot.computedAt(), LocalDateTime.now()).toSeconds());
+    }
+    
+    // Served from the in-memory activity feed, newest first
     @GetMapping("/dashboard/recent-activity")
     public ResponseEntity<List<Map<String, Object>>> getRecentActivity() {
         List<Map<String, Object>> activities = new ArrayList<>();
-        
-        try {
-            // Get recent exam sessions (completed exams)
-            List<ExamSession> recentSessions = examSessionRepository.findTop5ByStatusOrderByEndTimeDesc(ExamSession.Status.COMPLETED);
-            for (ExamSession session : recentSessions) {
-                Map<String, Object> activity = new HashMap<>();
-                activity.put("id", "session_" + session.getId());
-                activity.put("action", "completed exam: " + session.getExam().getTitle());
-                activity.put("user", session.getStudent().getFullName());
-                activity.put("time", formatTimeAgo(session.getEndTime()));
-                activities.add(activity);
-            }
-            
-            // Get recently created exams
-            List<Exam> recentExams = examRepository.findTop3ByOrderByCreatedAtDesc();
-            for (Exam exam : recentExams) {
-                Map<String, Object> activity = new HashMap<>();
-                activity.put("id", "exam_" + exam.getId());
-                activity.put("action", "created exam: " + exam.getTitle());
-                activity.put("user", "Admin");
-                activity.put("time", formatTimeAgo(exam.getCreatedAt()));
-                activities.add(activity);
-            }
-            
-            // Get recently registered students
-            List<Student> recentStudents = studentRepository.findTop3ByOrderByCreatedAtDesc();
-            for (Student student : recentStudents) {
-                Map<String, Object> activity = new HashMap<>();
-                activity.put("id", "student_" + student.getId());
-                activity.put("action", "registered as new student");
-                activity.put("user", student.getFullName());
-                activity.put("time", formatTimeAgo(student.getCreatedAt()));
-                activities.add(activity);
-            }
-            
-            // Sort all activities by time (most recent first)
-            activities.sort((a, b) -> {
-                // This is a simple sort - in a real app you'd want to sort by actual timestamps
-                return 0; // For now, keep the order as added
-            });
-            
-            // Limit to top 10 activities
-            if (activities.size() > 10) {
-                activities = activities.subList(0, 10);
-            }
-            
-        } catch (Exception e) {
-            // If there's any error, return empty list instead of mock data
-            System.err.println("Error fetching recent activity: " + e.getMessage());
+        for (ActivityFeed.Activity recent : activityFeed.getRecentActivity(10)) {
+            Map<String, Object> activity = new HashMap<>();
+            activity.put("id", recent.id());
+            activity.put("action", recent.action());
+            activity.put("user", recent.user());
+            activity.put("time", formatTimeAgo(recent.occurredAt()));
+            activities.add(activity);
         }
-        
         return ResponseEntity.ok(activities);
     }
     
-    // Analytics APIs for Results & Analytics page
+    // Analytics APIs for Results & Analytics page; figures come from the exam_analytics aggregates
     @GetMapping("/analytics/overview")
     public ResponseEntity<Map<String, Object>> getAnalyticsOverview() {
         Map<String, Object> analytics = new HashMap<>();
-        
-        // Total exams taken (completed sessions)
-        long totalExamsTaken = examSessionRepository.countCompletedSessions();
-        
-        // Average score calculation
-        List<ExamSession> completedSessions = examSessionRepository.findAll()
-                .stream()
-                .filter(session -> session.getStatus() == ExamSession.Status.COMPLETED)
-                .toList();
-        
-        double averageScore = completedSessions.isEmpty() ? 0.0 : 
-            completedSessions.stream()
-                .mapToDouble(session -> {
-                    if (session.getObtainedMarks() != null && session.getExam() != null) {
-                        return (double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100;
-                    }
-                    return 0.0;
-                })
-                .average()
-                .orElse(0.0);
-        
-        // Pass rate
-        long passedSessions = examSessionRepository.countPassedSessions();
-        double passRate = totalExamsTaken > 0 ? (double) passedSessions / totalExamsTaken * 100 : 0.0;
-        
-        // Active students (students who have taken at least one exam)
-        long activeStudents = completedSessions.stream()
-                .map(session -> session.getStudent().getId())
-                .distinct()
-                .count();
-        
-        analytics.put("totalExamsTaken", totalExamsTaken);
-        analytics.put("averageScore", Math.round(averageScore * 10.0) / 10.0);
-        analytics.put("passRate", Math.round(passRate * 10.0) / 10.0);
-        analytics.put("activeStudents", activeStudents);
+        putOverallFigures(analytics, examAnalyticsService.getGlobal());
         
         // Growth percentages (mock data)
         analytics.put("examsTakenGrowth", 15.0);
@@ -188,31 +153,25 @@ public class AdminController {
         List<Map<String, Object>> examPerformance = new ArrayList<>();
         
         List<Exam> activeExams = examService.getActiveExams(PageRequest.of(0, 100)).getContent();
+        Map<Long, ExamAnalytics> analyticsByExam = examAnalyticsService.getByExam();
         
         for (Exam exam : activeExams) {
             Map<String, Object> performance = new HashMap<>();
-            
-            List<ExamSession> examSessions = examSessionRepository.findCompletedSessionsByExamId(exam.getId());
+            ExamAnalytics analytics = analyticsByExam.get(exam.getId());
+            long attempts = analytics != null ? analytics.getAttempts() : 0;
             
             performance.put("examId", exam.getId());
             performance.put("examTitle", exam.getTitle());
-            performance.put("totalAttempts", examSessions.size());
-            
-            if (!examSessions.isEmpty()) {
-                double avgScore = examSessions.stream()
-                    .mapToDouble(session -> session.getObtainedMarks() != null ? 
-                        (double) session.getObtainedMarks() / exam.getTotalMarks() * 100 : 0.0)
-                    .average()
-                    .orElse(0.0);
-                
-                long passed = examSessions.stream()
-                    .filter(session -> session.getObtainedMarks() != null && 
-                        session.getObtainedMarks() >= exam.getPassingMarks())
-                    .count();
-                
-                performance.put("averageScore", Math.round(avgScore * 10.0) / 10.0);
-                performance.put("passRate", examSessions.size() > 0 ? 
-                    Math.round((double) passed / examSessions.size() * 100 * 10.0) / 10.0 : 0.0);
+            performance.put("totalAttempts", attempts);
+            
+            if (attempts > 0) {
+                double mean = (double) analytics.getScoreSum() / attempts;
+                double variance = Math.max(0, (double) analytics.getScoreSquareSum() / attempts - mean * mean);
+                performance.put("averageScore", Math.round(analytics.getPercentageSum() / attempts * 10.0) / 10.0);
+                performance.put("passRate", Math.round((double) analytics.getPassCount() / attempts * 100 * 10.0) / 10.0);
+                performance.put("averageMarks", Math.round(mean * 10.0) / 10.0);
+                performance.put("standardDeviation", Math.round(Math.sqrt(variance) * 10.0) / 10.0);
+                performance.put("distinctStudents", analytics.getDistinctStudents());
             } else {
                 performance.put("averageScore", 0.0);
                 performance.put("passRate", 0.0);
@@ -224,6 +183,81 @@ public class AdminController {
         return ResponseEntity.ok(examPerformance);
     }
     
+    // Consistency repair: recomputes every aggregate from exam_sessions
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAnalytics() {
+        examAnalyticsService.rebuildAll();
+        Map<String, Object> response = new HashMap<>();
+        response.put("exams", examAnalyticsService.getByExam().size());
+        response.put("totalExamsTaken", examAnalyticsService.getGlobal().getAttempts());
+        response.put("rebuiltAt", LocalDateTime.now());
+        return ResponseEntity.ok(response);
+    }
+    
+    // Score distribution of one exam, one category or everything (merged from per-exam histograms)
+    @GetMapping("/analytics/percentiles")
+    public ResponseEntity<Map<String, Object>> getScorePercentiles(@RequestParam(value = "examId", required = false) Long examId,
+                                                                   @RequestParam(value = "categoryId", required = false) Long categoryId,
+                                                                   @RequestParam(value = "p", defaultValue = "25,50,75,90,99") List<Double> percentiles) {
+        ScoreHistogram histogram = scoreHistogram(examId, categoryId);
+        Map<String, Object> response = new LinkedHashMap<>();
+        putScope(response, examId, categoryId);
+        response.put("count", histogram.getTotal());
+        response.put("mean", histogram.mean());
+        response.put("min", histogram.percentile(0));
+        response.put("max", histogram.percentile(100));
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Double p : percentiles) {
+            if (p < 0 || p > 100) {
+                throw new RuntimeException("Percentiles must be between 0 and 100");
+            }
+            values.put("p" + (p % 1 == 0 ? String.valueOf(p.intValue()) : String.valueOf(p)), histogram.percentile(p));
+        }
+        response.put("percentiles", values);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/analytics/histogram")
+    public ResponseEntity<Map<String, Object>> getScoreHistogram(@RequestParam(value = "examId", required = false) Long examId,
+                                                                 @RequestParam(value = "categoryId", required = false) Long categoryId,
+                                                                 @RequestParam(value = "binWidth", defaultValue = "10") double binWidth) {
+        if (binWidth < 0.1 || binWidth > 100) {
+            throw new RuntimeException("Bin width must be between 0.1 and 100");
+        }
+        ScoreHistogram histogram = scoreHistogram(examId, categoryId);
+        Map<String, Object> response = new LinkedHashMap<>();
+        putScope(response, examId, categoryId);
+        response.put("count", histogram.getTotal());
+        response.put("binWidth", binWidth);
+        response.put("bins", histogram.bins(binWidth));
+        return ResponseEntity.ok(response);
+    }
+    
+    private ScoreHistogram scoreHistogram(Long examId, Long categoryId) {
+        if (examId != null) {
+            return examAnalyticsService.getExamHistogram(examId);
+        }
+        return categoryId != null ? examAnalyticsService.getCategoryHistogram(categoryId) : examAnalyticsService.getGlobalHistogram();
+    }
+    
+    private static void putScope(Map<String, Object> target, Long examId, Long categoryId) {
+        if (examId != null) {
+            target.put("examId", examId);
+        } else if (categoryId != null) {
+            target.put("categoryId", categoryId);
+        } else {
+            target.put("scope", "global");
+        }
+    }
+    
+    private static void putOverallFigures(Map<String, Object> target, ExamAnalytics global) {
+        long attempts = global.getAttempts();
+        target.put("totalExamsTaken", attempts);
+        target.put("averageScore", attempts > 0 ? Math.round(global.getPercentageSum() / attempts * 10.0) / 10.0 : 0.0);
+        target.put("passRate", attempts > 0 ? Math.round((double) global.getPassCount() / attempts * 100 * 10.0) / 10.0 : 0.0);
+        target.put("activeStudents", global.getDistinctStudents());
+    }
+    
     // Exam Category Management
     @GetMapping("/exam-categories")
     public ResponseEntity<List<ExamCategory>> getExamCategories() {
@@ -277,6 +311,9 @@ public class AdminController {
             exam.setPassingMarks(Integer.valueOf(examData.get("passingMarks").toString()));
             exam.setInstructions((String) examData.get("instructions"));
             exam.setIsActive(Boolean.valueOf(examData.get("isActive").toString()));
+            exam.setPoolEasyCount(optionalInteger(examData.get("poolEasyCount")));
+            exam.setPoolMediumCount(optionalInteger(examData.get("poolMediumCount")));
+            exam.setPoolHardCount(optionalInteger(examData.get("poolHardCount")));
             
             // Set exam category
             ExamCategory category = examService.getAllCategories().stream()
@@ -304,6 +341,61 @@ public class AdminController {
         return ResponseEntity.ok("Exam deleted successfully");
     }
     
+    @PostMapping("/exams/{examId}/regrade")
+    public ResponseEntity<RegradeJob> regradeExam(@PathVariable("examId") Long examId) {
+        return ResponseEntity.accepted().body(regradeService.startRegrade(examId, null));
+    }
+    
+    @GetMapping("/exams/{examId}/item-analysis")
+    public ResponseEntity<List<Map<String, Object>>> getItemAnalysis(@PathVariable("examId") Long examId) {
+        return ResponseEntity.ok(answerVectorService.getItemAnalysis(examId));
+    }
+    
+    @GetMapping("/exams/{examId}/leaderboard")
+    public ResponseEntity<List<Map<String, Object>>> getExamLeaderboard(@PathVariable("examId") Long examId,
+                                                                        @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(leaderboardService.getExamLeaderboard(examId, Math.min(Math.max(limit, 1), MAX_LEADERBOARD)));
+    }
+    
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<Map<String, Object>>> getLeaderboard(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(leaderboardService.getTopStudents(Math.min(Math.max(limit, 1), MAX_LEADERBOARD)));
+    }
+    
+    @GetMapping("/regrade-jobs")
+    public ResponseEntity<List<RegradeJob>> getRegradeJobs() {
+        return ResponseEntity.ok(regradeService.getJobs());
+    }
+    
+    @GetMapping("/regrade-jobs/{jobId}")
+    public ResponseEntity<RegradeJob> getRegradeJob(@PathVariable("jobId") String jobId) {
+        RegradeJob job = regradeService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+    
+    @GetMapping("/metrics/idempotency")
+    public ResponseEntity<Map<String, Object>> getIdempotencyStats() {
+        return ResponseEntity.ok(idempotencyCache.getStats());
+    }
+    
+    @GetMapping("/metrics/answer-arena")
+    public ResponseEntity<Map<String, Object>> getAnswerArenaStats() {
+        Map<String, Object> stats = new HashMap<>(sessionAnswerArena.getStats());
+        stats.put("activeSessions", activeSessionRegistry.getActiveCount());
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/metrics/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(examAdmissionService.getStats());
+    }
+    
+    // How many hot-read calls shared another request's in-flight load instead of querying
+    @GetMapping("/metrics/coalescing")
+    public ResponseEntity<List<SingleFlight.Stats>> getCoalescingStats() {
+        return ResponseEntity.ok(singleFlightRegistry.getStats());
+    }
+    
     // Question Management
     @GetMapping("/questions/exam/{examId}")
     public ResponseEntity<List<Question>> getExamQuestions(@PathVariable("examId") Long examId) {
@@ -443,23 +535,21 @@ public class AdminController {
             students = studentRepository.findAll(pageable);
         }
         
-        // Get student statistics
-        long totalStudents = studentRepository.count();
-        long activeStudents = studentRepository.countActiveStudents();
-        long pendingStudents = studentRepository.countByStatus(Student.Status.ACTIVE); // Assuming ACTIVE means pending approval
-        long inactiveStudents = studentRepository.countByStatus(Student.Status.INACTIVE);
+        // Student statistics from the dashboard snapshot
+        DashboardSnapshotService.DashboardSnapshot snapshot = dashboardSnapshotService.get();
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalStudents", snapshot.totalStudents());
+        statistics.put("activeStudents", snapshot.activeStudents());
+        statistics.put("pendingStudents", snapshot.activeStudents()); // Assuming ACTIVE means pending approval
+        statistics.put("inactiveStudents", snapshot.inactiveStudents());
+        putSnapshotAge(statistics, snapshot);
         
         Map<String, Object> response = new HashMap<>();
         response.put("students", students.getContent());
         response.put("totalElements", students.getTotalElements());
         response.put("totalPages", students.getTotalPages());
         response.put("currentPage", students.getNumber());
-        response.put("statistics", Map.of(
-            "totalStudents", totalStudents,
-            "activeStudents", activeStudents,
-            "pendingStudents", pendingStudents,
-            "inactiveStudents", inactiveStudents
-        ));
+        response.put("statistics", statistics);
         
         return ResponseEntity.ok(response);
     }
@@ -473,190 +563,105 @@ public class AdminController {
         String status = request.get("status");
         student.setStatus(Student.Status.valueOf(status));
         studentRepository.save(student);
+        dashboardSnapshotService.markDirty();
         
         return ResponseEntity.ok("Student status updated successfully");
     }
     
-    // Results Management for Admin
+    // Results Management for Admin. Filters run in the database; pages come in (completedAt, id)
+    // descending order. Pass the returned nextCursor values as beforeEndTime/beforeId for the next page
+    // (keyset paging, constant cost at any depth); page/size offset paging still works for shallow pages.
+    // The total is only counted when includeTotal=true.
     @GetMapping("/results")
     public ResponseEntity<Map<String, Object>> getAllResults(@RequestParam(value = "page", defaultValue = "0") int page,
                                                            @RequestParam(value = "size", defaultValue = "10") int size,
                                                            @RequestParam(value = "examId", required = false) Long examId,
-                                                           @RequestParam(value = "studentId", required = false) Long studentId) {
-        Pageable pageable = PageRequest.of(page, size);
-        List<ExamSession> results;
-        
-        if (examId != null && studentId != null) {
-            // Filter by both exam and student
-            results = examSessionRepository.findAll().stream()
-                .filter(session -> session.getExam().getId().equals(examId) && 
-                                 session.getStudent().getId().equals(studentId) &&
-                                 session.getStatus() == ExamSession.Status.COMPLETED)
-                .toList();
-        } else if (examId != null) {
-            // Filter by exam only
-            results = examSessionRepository.findCompletedSessionsByExamId(examId);
-        } else if (studentId != null) {
-            // Filter by student only
-            results = examSessionRepository.findByStudentIdAndStatus(studentId, ExamSession.Status.COMPLETED);
-        } else {
-            // Get all completed results
-            results = examSessionRepository.findAll().stream()
-                .filter(session -> session.getStatus() == ExamSession.Status.COMPLETED)
-                .toList();
+                                                           @RequestParam(value = "studentId", required = false) Long studentId,
+                                                           @RequestParam(value = "minScore", required = false) Double minScore,
+                                                           @RequestParam(value = "maxScore", required = false) Double maxScore,
+                                                           @RequestParam(value = "status", required = false) String status,
+                                                           @RequestParam(value = "from", required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                           @RequestParam(value = "to", required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                           @RequestParam(value = "beforeEndTime", required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeEndTime,
+                                                           @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                                           @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_RESULT_PAGE);
+        Boolean passed = null;
+        if (status != null && !status.isBlank()) {
+            if (!status.equalsIgnoreCase("PASSED") && !status.equalsIgnoreCase("FAILED")) {
+                throw new RuntimeException("Status must be PASSED or FAILED");
+            }
+            passed = status.equalsIgnoreCase("PASSED");
         }
         
-        // Convert to response format
-        List<Map<String, Object>> resultData = results.stream().map(session -> {
-            Map<String, Object> result = new HashMap<>();
-            result.put("id", session.getId());
-            result.put("studentName", session.getStudent().getFullName());
-            result.put("studentEmail", session.getStudent().getEmail());
-            result.put("examTitle", session.getExam().getTitle());
-            result.put("obtainedMarks", session.getObtainedMarks());
-            result.put("totalMarks", session.getExam().getTotalMarks());
-            result.put("passingMarks", session.getExam().getPassingMarks());
-            result.put("percentage", session.getObtainedMarks() != null ? 
-                Math.round((double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100 * 10.0) / 10.0 : 0.0);
-            result.put("status", session.getObtainedMarks() != null && session.getObtainedMarks() >= session.getExam().getPassingMarks() ? "PASSED" : "FAILED");
-            result.put("completedAt", session.getEndTime());
-            result.put("duration", session.getExam().getDurationMinutes());
-            return result;
-        }).toList();
+        Specification<ExamSession> filters = Specification.where(ExamSessionSpecifications.completed())
+            .and(ExamSessionSpecifications.forExam(examId))
+            .and(ExamSessionSpecifications.forStudent(studentId))
+            .and(ExamSessionSpecifications.scoreBetween(minScore, maxScore))
+            .and(ExamSessionSpecifications.passed(passed))
+            .and(ExamSessionSpecifications.completedBetween(from, to));
+        boolean keyset = beforeEndTime != null && beforeId != null;
+        List<AdminResultView> results = examSessionResultRepository.findResults(
+            filters.and(ExamSessionSpecifications.before(beforeEndTime, beforeId)),
+            keyset ? 0 : Math.max(page, 0) * pageSize, pageSize);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("results", resultData);
-        response.put("totalElements", resultData.size());
-        response.put("totalPages", (int) Math.ceil((double) resultData.size() / size));
-        response.put("currentPage", page);
+        response.put("results", results);
+        response.put("currentPage", keyset ? null : page);
+        response.put("size", pageSize);
+        if (results.size() == pageSize) {
+            AdminResultView last = results.get(results.size() - 1);
+            Map<String, Object> nextCursor = new LinkedHashMap<>();
+            nextCursor.put("beforeEndTime", last.getCompletedAt());
+            nextCursor.put("beforeId", last.getId());
+            response.put("nextCursor", nextCursor);
+        } else {
+            response.put("nextCursor", null);
+        }
+        if (includeTotal) {
+            long total = examSessionRepository.count(filters);
+            response.put("totalElements", total);
+            response.put("totalPages", (int) Math.ceil((double) total / pageSize));
+        }
         
         return ResponseEntity.ok(response);
     }
     
+    // Served from the result document stored at grade time, gzipped when the client accepts it
     @GetMapping("/results/{sessionId}/details")
-    public ResponseEntity<Map<String, Object>> getResultDetails(@PathVariable("sessionId") Long sessionId) {
-        ExamSession session = examSessionRepository.findById(sessionId)
-            .orElseThrow(() -> new RuntimeException("Result not found"));
-            
-        if (session.getStatus() != ExamSession.Status.COMPLETED) {
-            throw new RuntimeException("Exam not completed yet");
-        }
-        
-        // Get all answers for this session
-        List<StudentAnswer> answers = examSessionRepository.findById(sessionId)
-            .map(s -> s.getStudentAnswers())
-            .orElse(List.of());
-        
-        // Get all questions for this exam
-        List<Question> questions = questionService.getQuestionsByExamId(session.getExam().getId());
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("sessionId", session.getId());
-        result.put("studentName", session.getStudent().getFullName());
-        result.put("studentEmail", session.getStudent().getEmail());
-        result.put("examTitle", session.getExam().getTitle());
-        result.put("obtainedMarks", session.getObtainedMarks());
-        result.put("totalMarks", session.getExam().getTotalMarks());
-        result.put("passingMarks", session.getExam().getPassingMarks());
-        result.put("percentage", session.getObtainedMarks() != null ? 
-            Math.round((double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100 * 10.0) / 10.0 : 0.0);
-        result.put("status", session.getObtainedMarks() != null && session.getObtainedMarks() >= session.getExam().getPassingMarks() ? "PASSED" : "FAILED");
-        result.put("startTime", session.getStartTime());
-        result.put("endTime", session.getEndTime());
-        result.put("duration", session.getExam().getDurationMinutes());
-        
-        // Add question-wise analysis
-        List<Map<String, Object>> questionAnalysis = new ArrayList<>();
-        for (Question question : questions) {
-            Map<String, Object> qAnalysis = new HashMap<>();
-            qAnalysis.put("questionId", question.getId());
-            qAnalysis.put("questionText", question.getQuestionText());
-            qAnalysis.put("correctAnswer", question.getCorrectAnswer());
-            qAnalysis.put("marks", question.getMarks());
-            
-            // Find student's answer for this question
-            StudentAnswer studentAnswer = answers.stream()
-                .filter(ans -> ans.getQuestion().getId().equals(question.getId()))
-                .findFirst()
-                .orElse(null);
-                
-            if (studentAnswer != null) {
-                qAnalysis.put("selectedAnswer", studentAnswer.getSelectedAnswer());
-                qAnalysis.put("isCorrect", studentAnswer.getIsCorrect());
-                qAnalysis.put("marksObtained", studentAnswer.getIsCorrect() ? question.getMarks() : 0);
-            } else {
-                qAnalysis.put("selectedAnswer", null);
-                qAnalysis.put("isCorrect", false);
-                qAnalysis.put("marksObtained", 0);
-            }
-            
-            questionAnalysis.add(qAnalysis);
+    public ResponseEntity<byte[]> getResultDetails(@PathVariable("sessionId") Long sessionId,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        byte[] document = resultSnapshotService.findGzipped(sessionId)
+            .orElseThrow(() -> new RuntimeException("Exam not completed yet"));
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document);
         }
-        
-        result.put("questionAnalysis", questionAnalysis);
-        
-        return ResponseEntity.ok(result);
+        return response.body(ResultSnapshotService.gunzip(document));
     }
     
     // Results and Analytics
     @GetMapping("/results/statistics")
     public ResponseEntity<Map<String, Object>> getResultStatistics() {
         Map<String, Object> stats = new HashMap<>();
+        putOverallFigures(stats, examAnalyticsService.getGlobal());
         
-        // Get real statistics from database
-        long totalExamsTaken = examSessionRepository.countCompletedSessions();
-        
-        // Calculate average score from all completed sessions
-        List<ExamSession> completedSessions = examSessionRepository.findAll()
-                .stream()
-                .filter(session -> session.getStatus() == ExamSession.Status.COMPLETED)
-                .toList();
-        
-        double averageScore = completedSessions.isEmpty() ? 0.0 : 
-            completedSessions.stream()
-                .mapToDouble(session -> {
-                    if (session.getObtainedMarks() != null && session.getExam() != null) {
-                        return (double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100;
-                    }
-                    return 0.0;
-                })
-                .average()
-                .orElse(0.0);
-        
-        // Calculate pass rate
-        long passedSessions = examSessionRepository.countPassedSessions();
-        double passRate = totalExamsTaken > 0 ? (double) passedSessions / totalExamsTaken * 100 : 0.0;
-        
-        // Get top performers (students with highest average scores)
-        List<Map<String, Object>> topPerformers = completedSessions.stream()
-            .collect(java.util.stream.Collectors.groupingBy(
-                session -> session.getStudent().getFullName(),
-                java.util.stream.Collectors.averagingDouble(session -> 
-                    session.getObtainedMarks() != null && session.getExam() != null ? 
-                        (double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100 : 0.0
-                )
-            ))
-            .entrySet().stream()
-            .sorted(java.util.Map.Entry.<String, Double>comparingByValue().reversed())
-            .limit(5)
-            .map(entry -> {
+        // Top performers by average best score per exam, from the leaderboard
+        List<Map<String, Object>> topPerformers = leaderboardService.getTopStudents(5).stream()
+            .map(row -> {
                 Map<String, Object> performer = new HashMap<>();
-                performer.put("name", entry.getKey());
-                performer.put("averageScore", Math.round(entry.getValue() * 10.0) / 10.0);
+                performer.put("studentId", row.get("studentId"));
+                performer.put("name", row.get("studentName"));
+                performer.put("averageScore", row.get("averageScore"));
                 return performer;
             })
             .toList();
-        
-        // Active students count
-        long activeStudents = completedSessions.stream()
-                .map(session -> session.getStudent().getId())
-                .distinct()
-                .count();
-        
-        stats.put("totalExamsTaken", totalExamsTaken);
-        stats.put("averageScore", Math.round(averageScore * 10.0) / 10.0);
-        stats.put("passRate", Math.round(passRate * 10.0) / 10.0);
-        stats.put("activeStudents", activeStudents);
         stats.put("topPerformers", topPerformers.isEmpty() ? List.of(Map.of("name", "No data available", "averageScore", 0.0)) : topPerformers);
         
         // Add growth percentages (mock data for now - would need historical data for real calculation)
@@ -670,28 +675,20 @@ public class AdminController {
     
     @GetMapping("/results/recent")
     public ResponseEntity<List<Map<String, Object>>> getRecentResults(@RequestParam(value = "limit", defaultValue = "10") int limit) {
-        // Get recent completed exam sessions
-        List<ExamSession> recentSessions = examSessionRepository.findAll()
-                .stream()
-                .filter(session -> session.getStatus() == ExamSession.Status.COMPLETED)
-                .sorted((s1, s2) -> s2.getEndTime().compareTo(s1.getEndTime())) // Sort by end time descending
-                .limit(limit)
-                .toList();
-        
-        List<Map<String, Object>> recentResults = recentSessions.stream()
-                .map(session -> {
+        // Latest completions from the in-memory activity feed
+        List<Map<String, Object>> recentResults = activityFeed.getRecentCompletions(Math.max(limit, 1)).stream()
+                .map(completion -> {
                     Map<String, Object> result = new HashMap<>();
-                    result.put("id", session.getId());
-                    result.put("studentName", session.getStudent().getFullName());
-                    result.put("examTitle", session.getExam().getTitle());
-                    result.put("obtainedMarks", session.getObtainedMarks());
-                    result.put("totalMarks", session.getExam().getTotalMarks());
-                    result.put("score", session.getObtainedMarks() + "/" + session.getExam().getTotalMarks());
-                    result.put("percentage", session.getObtainedMarks() != null ? 
-                        Math.round((double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100 * 10.0) / 10.0 : 0.0);
-                    result.put("status", session.getObtainedMarks() != null && session.getObtainedMarks() >= session.getExam().getPassingMarks() ? "Passed" : "Failed");
-                    result.put("completedAt", session.getEndTime());
-                    result.put("timeAgo", calculateTimeAgo(session.getEndTime()));
+                    result.put("id", completion.sessionId());
+                    result.put("studentName", completion.studentName());
+                    result.put("examTitle", completion.examTitle());
+                    result.put("obtainedMarks", completion.obtainedMarks());
+                    result.put("totalMarks", completion.totalMarks());
+                    result.put("score", completion.obtainedMarks() + "/" + completion.totalMarks());
+                    result.put("percentage", Math.round((double) completion.obtainedMarks() / completion.totalMarks() * 100 * 10.0) / 10.0);
+                    result.put("status", completion.obtainedMarks() >= completion.passingMarks() ? "Passed" : "Failed");
+                    result.put("completedAt", completion.completedAt());
+                    result.put("timeAgo", calculateTimeAgo(completion.completedAt()));
                     return result;
                 })
                 .toList();
@@ -980,4 +977,9 @@ public class AdminController {
             return days + " day" + (days == 1 ? "" : "s") + " ago";
         }
     }
+    
+    // Helper method to read an optional integer field from a request map
+    private Integer optionalInteger(Object value) {
+        return value != null && !value.toString().isBlank() ? Integer.valueOf(value.toString()) : null;
+    }
 }
@@ -1,16 +1,38 @@
 package com.examportal.controller;
 
+import com.examportal.dto.StudentResultView;
+import com.examportal.dto.SubmissionResult;
 import com.examportal.entity.*;
+import com.examportal.service.ActiveSessionRegistry;
+import com.examportal.service.ExamAdmissionService;
+import com.examportal.service.GradingResultNotifier;
+import com.examportal.service.IdempotencyCache;
+import com.examportal.service.LeaderboardService;
+import com.examportal.service.QuestionPaperCache;
+import com.examportal.service.QuestionPoolIndex;
+import com.examportal.service.ResultSnapshotService;
+import com.examportal.service.SessionShuffle;
 import com.examportal.service.StudentService;
 import com.examportal.security.UserPrincipal;
+import com.fasterxml.jackson.databind.util.RawValue;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/student")
@@ -19,7 +41,17 @@ import java.util.Map;
 // @PreAuthorize("hasRole('STUDENT')") // Temporarily disabled for testing
 public class StudentController {
     
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String CLIENT_SEQ = "X-Client-Seq";
+    private static final int DEFAULT_RESULT_PAGE = 50;
+    private static final int MAX_RESULT_PAGE = 200;
+    
     private final StudentService studentService;
+    private final GradingResultNotifier gradingResultNotifier;
+    private final ExamAdmissionService examAdmissionService;
+    private final IdempotencyCache idempotencyCache;
+    private final ResultSnapshotService resultSnapshotService;
+    private final LeaderboardService leaderboardService;
     
     @GetMapping("/test")
     public ResponseEntity<Map<String, Object>> testEndpoint() {
@@ -39,7 +71,7 @@ public class StudentController {
         if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
             dashboard.put("availableExams", studentService.getAvailableExamsForStudent(userPrincipal.getId()));
-            dashboard.put("previousResults", studentService.getStudentResults(userPrincipal.getId()));
+            dashboard.put("previousResults", studentService.getStudentResults(userPrincipal.getId(), null, DEFAULT_RESULT_PAGE));
         } else {
             // For testing when no authentication, return available exams without student-specific data
             dashboard.put("availableExams", studentService.getAvailableExams());
@@ -62,11 +94,32 @@ public class StudentController {
     }
     
     @PostMapping("/exams/{examId}/start")
-    public ResponseEntity<ExamSession> startExam(@PathVariable("examId") Long examId, 
-                                               Authentication authentication) {
+    public ResponseEntity<?> startExam(@PathVariable("examId") Long examId,
+                                       @RequestHeader(value = "X-Queue-Ticket", required = false) String queueTicket,
+                                       Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        ExamSession session = studentService.startExam(userPrincipal.getId(), examId);
-        return ResponseEntity.ok(session);
+        
+        // Over the start rate: hand back a queue ticket instead of piling onto the connection pool
+        ExamAdmissionService.Admission admission = examAdmissionService.admit(examId, queueTicket);
+        if (!admission.admitted()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", admission.ticket() != null ? "QUEUED" : "FULL");
+            response.put("ticket", admission.ticket());
+            response.put("position", admission.position());
+            response.put("retryAfterMs", admission.retryAfterMs());
+            response.put("message", admission.ticket() != null
+                    ? "Exam start is queued, please wait" : "Too many students are starting exams, please retry shortly");
+            return ResponseEntity.status(admission.ticket() != null ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()))
+                    .body(response);
+        }
+        
+        try {
+            ExamSession session = studentService.startExam(userPrincipal.getId(), examId);
+            return ResponseEntity.ok(session);
+        } finally {
+            examAdmissionService.release(examId);
+        }
     }
     
     @GetMapping("/exams/{examId}")
@@ -75,112 +128,303 @@ public class StudentController {
         return ResponseEntity.ok(exam);
     }
     
+    // "Your rank": the student's best session of the exam against everyone else's best; rank is null
+    // until they have completed it (or when unauthenticated)
+    @GetMapping("/exams/{examId}/rank")
+    public ResponseEntity<Map<String, Object>> getExamRank(@PathVariable("examId") Long examId, Authentication authentication) {
+        return ResponseEntity.ok(leaderboardService.getExamRank(examId, currentStudentId(authentication)));
+    }
+    
+    @GetMapping("/rank")
+    public ResponseEntity<Map<String, Object>> getOverallRank(Authentication authentication) {
+        return ResponseEntity.ok(leaderboardService.getOverallRank(currentStudentId(authentication)));
+    }
+    
+    // The exam's whole question bank. The exam UI takes its paper from /exam-sessions/{id}/questions
+    // instead, which on a pooled exam holds only the session's draw (the only questions it accepts answers to).
     @GetMapping("/exams/{examId}/questions")
-    public ResponseEntity<List<Question>> getExamQuestions(@PathVariable("examId") Long examId) {
-        List<Question> questions = studentService.getExamQuestions(examId);
-        return ResponseEntity.ok(questions);
+    public ResponseEntity<byte[]> getExamQuestions(@PathVariable("examId") Long examId,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        QuestionPaperCache.QuestionPaper paper = studentService.getQuestionPaper(examId);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? paper.getGzipEtag() : paper.getEtag();
+        
+        if (paper.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(paper.getGzip());
+        }
+        return response.body(paper.getJson());
     }
     
+    // shuffled=true returns the session's shuffled paper and the answer sheet in its option letters, for
+    // clients answering on /exam-sessions/{id}/questions
     @GetMapping("/exam-sessions/{sessionId}")
-    public ResponseEntity<Map<String, Object>> getExamSession(@PathVariable("sessionId") Long sessionId) {
+    public ResponseEntity<Map<String, Object>> getExamSession(@PathVariable("sessionId") Long sessionId,
+                                                              @RequestParam(value = "shuffled", defaultValue = "false") boolean shuffled) {
         ExamSession session = studentService.getExamSession(sessionId);
-        List<Question> questions = studentService.getExamQuestions(session.getExam().getId());
-        List<StudentAnswer> answers = studentService.getExamSessionAnswers(sessionId);
+        QuestionPaperCache.QuestionPaper paper = studentService.getQuestionPaper(session.getExam().getId());
         
         Map<String, Object> response = new HashMap<>();
         response.put("session", session);
-        response.put("questions", questions);
-        response.put("answers", answers);
+        // Embedded as-is from the cached paper instead of being re-serialized
+        long[] drawn = QuestionPoolIndex.decode(session.getQuestionIds());
+        byte[] questions = shuffled ? paper.render(new SessionShuffle(sessionId), drawn)
+                : drawn != null ? paper.render(null, drawn) : paper.getJson();
+        response.put("questions", new RawValue(new String(questions, StandardCharsets.UTF_8)));
+        if (session.getStatus() == ExamSession.Status.IN_PROGRESS) {
+            // questionId -> selected option, so a reconnecting client can restore its state
+            response.put("answerSheet", studentService.getAnswerSheet(sessionId, shuffled));
+        } else if (session.getStatus() == ExamSession.Status.COMPLETED) {
+            // Answer rows carry isCorrect, so they are only returned once the session is graded
+            response.put("answers", studentService.getExamSessionAnswers(sessionId));
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // This session's paper in its own question and option order; answers picked on it are sent with "shuffled": true
+    @GetMapping("/exam-sessions/{sessionId}/questions")
+    public ResponseEntity<byte[]> getShuffledQuestions(@PathVariable("sessionId") Long sessionId,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ExamSession session = studentService.getExamSession(sessionId);
+        QuestionPaperCache.QuestionPaper paper = studentService.getQuestionPaper(session.getExam().getId());
+        String etag = paper.shuffledEtag(sessionId);
         
+        if (QuestionPaperCache.QuestionPaper.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(paper.render(new SessionShuffle(sessionId), QuestionPoolIndex.decode(session.getQuestionIds())));
+    }
+    
+    @GetMapping("/exam-sessions/{sessionId}/time")
+    public ResponseEntity<Map<String, Object>> getRemainingTime(@PathVariable("sessionId") Long sessionId) {
+        ExamSession session = studentService.getExamSession(sessionId);
+        LocalDateTime deadline = studentService.getSessionDeadline(session);
+        LocalDateTime now = LocalDateTime.now();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionId", sessionId);
+        response.put("status", session.getStatus());
+        response.put("serverTime", now);
+        response.put("deadline", deadline);
+        response.put("answeredCount", studentService.getAnsweredCount(sessionId));
+        response.put("remainingSeconds", session.getStatus() == ExamSession.Status.IN_PROGRESS
+                ? Math.max(0, Duration.between(now, deadline).getSeconds()) : 0);
         return ResponseEntity.ok(response);
     }
     
+    // Retried writes are recognised by an Idempotency-Key header (same response replayed) or, for
+    // answers, by X-Client-Seq: a per-session counter the client bumps on every write
     @PostMapping("/exam-sessions/{sessionId}/answers")
-    public ResponseEntity<StudentAnswer> submitAnswer(@PathVariable("sessionId") Long sessionId,
-                                                    @RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> submitAnswer(@PathVariable("sessionId") Long sessionId,
+                                                            @RequestBody Map<String, Object> request,
+                                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                            @RequestHeader(value = CLIENT_SEQ, required = false) Long clientSeq,
+                                                            Authentication authentication) {
         Long questionId = Long.valueOf(request.get("questionId").toString());
         String selectedAnswer = (String) request.get("selectedAnswer");
+        boolean shuffled = Boolean.TRUE.equals(request.get("shuffled"));
+        Long studentId = currentStudentId(authentication);
         
-        StudentAnswer answer = studentService.submitAnswer(sessionId, questionId, selectedAnswer);
-        return ResponseEntity.ok(answer);
+        Map<String, Object> response = idempotencyCache.execute("answer", sessionId, idempotencyKey, () -> {
+            boolean applied = studentService.submitAnswer(sessionId, studentId, questionId, selectedAnswer, shuffled,
+                    clientSeq != null ? clientSeq : ActiveSessionRegistry.NO_CLIENT_SEQ);
+            
+            Map<String, Object> body = new HashMap<>();
+            body.put("sessionId", sessionId);
+            body.put("questionId", questionId);
+            body.put("selectedAnswer", selectedAnswer);
+            body.put("clientSeq", clientSeq);
+            // STALE: a newer write to this question was already applied, so this one was dropped
+            body.put("status", applied ? "ACCEPTED" : "STALE");
+            return body;
+        });
+        return ResponseEntity.ok(response);
+    }
+    
+    // Items may carry their own "clientSeq"; otherwise the X-Client-Seq header applies to the whole batch
+    @PostMapping("/exam-sessions/{sessionId}/answers:batch")
+    public ResponseEntity<Map<String, Object>> submitAnswers(@PathVariable("sessionId") Long sessionId,
+                                                             @RequestBody List<Map<String, Object>> request,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                             @RequestHeader(value = CLIENT_SEQ, required = false) Long clientSeq,
+                                                             Authentication authentication) {
+        Map<Long, String> answers = new LinkedHashMap<>();
+        Map<Long, Long> clientSeqs = new HashMap<>();
+        for (Map<String, Object> item : request) {
+            Long questionId = Long.valueOf(item.get("questionId").toString());
+            String selectedAnswer = (String) item.get("selectedAnswer");
+            if (Boolean.TRUE.equals(item.get("shuffled"))) {
+                selectedAnswer = studentService.toCanonicalAnswer(sessionId, questionId, selectedAnswer);
+            }
+            answers.put(questionId, selectedAnswer);
+            Object itemSeq = item.get("clientSeq");
+            if (itemSeq != null) {
+                clientSeqs.put(questionId, Long.valueOf(itemSeq.toString()));
+            } else if (clientSeq != null) {
+                clientSeqs.put(questionId, clientSeq);
+            }
+        }
+        Long studentId = currentStudentId(authentication);
+        
+        Map<String, Object> response = idempotencyCache.execute("answers", sessionId, idempotencyKey, () -> {
+            int saved = studentService.submitAnswers(sessionId, studentId, answers, clientSeqs);
+            
+            Map<String, Object> body = new HashMap<>();
+            body.put("sessionId", sessionId);
+            body.put("answersSaved", saved);
+            body.put("staleDropped", answers.size() - saved);
+            body.put("status", "SAVED");
+            return body;
+        });
+        return ResponseEntity.ok(response);
     }
     
     @PostMapping("/exam-sessions/{sessionId}/submit")
-    public ResponseEntity<ExamSession> submitExam(@PathVariable("sessionId") Long sessionId) {
-        ExamSession completedSession = studentService.submitExam(sessionId);
-        return ResponseEntity.ok(completedSession);
+    public ResponseEntity<Map<String, Object>> submitExam(@PathVariable("sessionId") Long sessionId,
+                                                          @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyCache.execute("submit", sessionId, idempotencyKey, () -> {
+            ExamSession session = studentService.submitExam(sessionId);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("sessionId", session.getId());
+            response.put("status", session.getStatus());
+            response.put("endTime", session.getEndTime());
+            response.put("resultUrl", "/api/student/exam-sessions/" + sessionId + "/result");
+            
+            // Grading happens on the queue; the client polls resultUrl until the session is COMPLETED
+            HttpStatus httpStatus = session.getStatus() == ExamSession.Status.COMPLETED ? HttpStatus.OK : HttpStatus.ACCEPTED;
+            return ResponseEntity.status(httpStatus).body(response);
+        });
     }
     
-    @GetMapping("/results")
-    public ResponseEntity<Map<String, Object>> getResults(Authentication authentication) {
-        // Handle case when authentication is null (security bypassed for testing)
-        List<ExamSession> sessions;
-        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            sessions = studentService.getStudentResults(userPrincipal.getId());
-        } else {
-            // For testing when no authentication, return empty results
-            sessions = List.of();
+    // Long-poll: with waitSeconds > 0 the request is parked (without holding a thread) until grading finishes
+    @GetMapping("/exam-sessions/{sessionId}/result")
+    public DeferredResult<ResponseEntity<SubmissionResult>> getSubmissionResult(
+            @PathVariable("sessionId") Long sessionId,
+            @RequestParam(value = "waitSeconds", defaultValue = "0") int waitSeconds) {
+        long timeoutMs = Math.min(Math.max(waitSeconds, 0), 30) * 1000L;
+        DeferredResult<ResponseEntity<SubmissionResult>> deferred = new DeferredResult<>(timeoutMs > 0 ? timeoutMs : null);
+        
+        SubmissionResult result = studentService.getSubmissionResult(sessionId);
+        if (isFinal(result) || timeoutMs == 0) {
+            deferred.setResult(toResponse(result));
+            return deferred;
         }
         
-        // Convert to detailed result format
-        List<Map<String, Object>> results = sessions.stream()
-            .filter(session -> session.getStatus() == ExamSession.Status.COMPLETED)
-            .map(session -> {
-                Map<String, Object> result = new HashMap<>();
-                result.put("id", session.getId());
-                result.put("examTitle", session.getExam().getTitle());
-                result.put("examCategory", session.getExam().getExamCategory().getName());
-                result.put("obtainedMarks", session.getObtainedMarks());
-                result.put("totalMarks", session.getExam().getTotalMarks());
-                result.put("passingMarks", session.getExam().getPassingMarks());
-                result.put("percentage", session.getObtainedMarks() != null ? 
-                    Math.round((double) session.getObtainedMarks() / session.getExam().getTotalMarks() * 100 * 10.0) / 10.0 : 0.0);
-                result.put("status", session.getObtainedMarks() != null && session.getObtainedMarks() >= session.getExam().getPassingMarks() ? "PASSED" : "FAILED");
-                result.put("completedAt", session.getEndTime());
-                result.put("duration", session.getExam().getDurationMinutes());
-                return result;
-            }).toList();
+        Runnable onGraded = () -> deferred.setResult(toResponse(studentService.getSubmissionResult(sessionId)));
+        gradingResultNotifier.await(sessionId, onGraded);
+        deferred.onTimeout(() -> deferred.setResult(toResponse(studentService.getSubmissionResult(sessionId))));
+        deferred.onCompletion(() -> gradingResultNotifier.cancel(sessionId, onGraded));
         
+        // Grading may have finished between the first read and registering the waiter
+        SubmissionResult recheck = studentService.getSubmissionResult(sessionId);
+        if (isFinal(recheck)) {
+            deferred.setResult(toResponse(recheck));
+        }
+        return deferred;
+    }
+    
+    private static boolean isFinal(SubmissionResult result) {
+        return !ExamSession.Status.SUBMITTED.name().equals(result.getStatus());
+    }
+    
+    private static ResponseEntity<SubmissionResult> toResponse(SubmissionResult result) {
+        return isFinal(result) ? ResponseEntity.ok(result) : ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+    }
+    
+    // Keyset paged: pass the returned nextCursor as "before" to get the next (older) page
+    @GetMapping("/results")
+    public ResponseEntity<Map<String, Object>> getResults(@RequestParam(value = "before", required = false) Long before,
+                                                          @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                          Authentication authentication) {
         Map<String, Object> response = new HashMap<>();
-        response.put("results", results);
-        response.put("totalResults", results.size());
-        
-        // Calculate summary statistics
-        if (!results.isEmpty()) {
-            double avgPercentage = results.stream()
-                .mapToDouble(r -> (Double) r.get("percentage"))
-                .average()
-                .orElse(0.0);
-            long passedCount = results.stream()
-                .filter(r -> "PASSED".equals(r.get("status")))
-                .count();
-            
-            response.put("averagePercentage", Math.round(avgPercentage * 10.0) / 10.0);
-            response.put("passedExams", passedCount);
-            response.put("failedExams", results.size() - passedCount);
-            response.put("passRate", Math.round((double) passedCount / results.size() * 100 * 10.0) / 10.0);
-        } else {
+        
+        // Handle case when authentication is null (security bypassed for testing)
+        if (!(authentication != null && authentication.getPrincipal() instanceof UserPrincipal userPrincipal)) {
+            // For testing when no authentication, return empty results
+            response.put("results", List.of());
+            response.put("totalResults", 0);
+            response.put("nextCursor", null);
             response.put("averagePercentage", 0.0);
             response.put("passedExams", 0);
             response.put("failedExams", 0);
             response.put("passRate", 0.0);
+            return ResponseEntity.ok(response);
         }
         
+        int pageSize = Math.min(Math.max(limit, 1), MAX_RESULT_PAGE);
+        List<StudentResultView> results = studentService.getStudentResults(userPrincipal.getId(), before, pageSize);
+        response.put("results", results);
+        response.put("nextCursor", results.size() == pageSize ? results.get(results.size() - 1).getId() : null);
+        
+        // Summary statistics cover the whole history, not just this page
+        Object[] summary = studentService.getResultSummary(userPrincipal.getId());
+        long total = ((Number) summary[0]).longValue();
+        long passedCount = summary[1] != null ? ((Number) summary[1]).longValue() : 0;
+        double avgPercentage = summary[2] != null ? ((Number) summary[2]).doubleValue() : 0.0;
+        response.put("totalResults", total);
+        response.put("averagePercentage", Math.round(avgPercentage * 10.0) / 10.0);
+        response.put("passedExams", passedCount);
+        response.put("failedExams", total - passedCount);
+        response.put("passRate", total > 0 ? Math.round((double) passedCount / total * 100 * 10.0) / 10.0 : 0.0);
+        
         return ResponseEntity.ok(response);
     }
     
+    // Completed sessions are served from their stored result document, gzipped when the client accepts it;
+    // a session still being graded gets 202, one not yet submitted 409
     @GetMapping("/results/{resultId}")
-    public ResponseEntity<Map<String, Object>> getResultDetails(@PathVariable("resultId") Long resultId) {
-        ExamSession session = studentService.getExamSession(resultId);
-        List<StudentAnswer> answers = studentService.getExamSessionAnswers(resultId);
-        List<Question> questions = studentService.getExamQuestions(session.getExam().getId());
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("session", session);
-        result.put("answers", answers);
-        result.put("questions", questions);
+    public ResponseEntity<?> getResultDetails(@PathVariable("resultId") Long resultId,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<byte[]> document = resultSnapshotService.findGzipped(resultId);
+        if (document.isPresent()) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.get());
+            }
+            return response.body(ResultSnapshotService.gunzip(document.get()));
+        }
         
-        return ResponseEntity.ok(result);
+        // No document until the session is graded; nothing about its answers is shown before then
+        ExamSession session = studentService.getExamSession(resultId);
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionId", session.getId());
+        response.put("status", session.getStatus());
+        if (session.getStatus() == ExamSession.Status.SUBMITTED) {
+            response.put("resultUrl", "/api/student/exam-sessions/" + resultId + "/result");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+    
+    // Null when security is bypassed for testing; answer writes are then not attributed
+    private Long currentStudentId(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal userPrincipal) {
+            return userPrincipal.getId();
+        }
+        return null;
     }
 }
@@ -0,0 +1,41 @@
+package com.examportal.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One row of the admin results list, projected by ExamSessionResultRepository without loading entities
+@Data
+public class AdminResultView {
+    private Long id;
+    private Long studentId;
+    private String studentName;
+    private String studentEmail;
+    private Long examId;
+    private String examTitle;
+    private Integer obtainedMarks;
+    private Integer totalMarks;
+    private Integer passingMarks;
+    private Double percentage;
+    private String status;
+    private LocalDateTime completedAt;
+    private Integer duration;
+
+    public AdminResultView(Long id, Long studentId, String studentName, String studentEmail, Long examId, String examTitle,
+                           Integer obtainedMarks, Integer totalMarks, Integer passingMarks, LocalDateTime completedAt,
+                           Integer duration) {
+        this.id = id;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.studentEmail = studentEmail;
+        this.examId = examId;
+        this.examTitle = examTitle;
+        this.obtainedMarks = obtainedMarks;
+        this.totalMarks = totalMarks;
+        this.passingMarks = passingMarks;
+        this.percentage = Math.round((double) obtainedMarks / totalMarks * 100 * 10.0) / 10.0;
+        this.status = obtainedMarks >= passingMarks ? "PASSED" : "FAILED";
+        this.completedAt = completedAt;
+        this.duration = duration;
+    }
+}
@@ -0,0 +1,22 @@
+package com.examportal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One row of a student's result history, built by ExamSessionRepository.findResultViews in a single query
+@Data
+@AllArgsConstructor
+public class StudentResultView {
+    private Long id;
+    private String examTitle;
+    private String examCategory;
+    private Integer obtainedMarks;
+    private Integer totalMarks;
+    private Integer passingMarks;
+    private Double percentage;
+    private String status;
+    private LocalDateTime completedAt;
+    private Integer duration;
+}
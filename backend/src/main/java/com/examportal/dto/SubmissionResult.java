@@ -0,0 +1,19 @@
+package com.examportal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class SubmissionResult {
+    private Long sessionId;
+    private String status;
+    private Integer obtainedMarks;
+    private Integer totalMarks;
+    private Integer passingMarks;
+    private Double percentage;
+    private Boolean passed;
+    private LocalDateTime endTime;
+}
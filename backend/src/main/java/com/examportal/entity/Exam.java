@@ -14,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "exams")
+@Table(name = "exams", indexes = @Index(name = "idx_exams_created_at", columnList = "created_at"))
 @Data
 @EntityListeners(AuditingEntityListener.class)
 public class Exam {
@@ -53,6 +53,16 @@ public class Exam {
     @Column(nullable = false)
     private Boolean isActive = true;
 
+    // When any pool count is set, each session draws this many questions per difficulty from the exam's bank
+    @Min(0)
+    private Integer poolEasyCount;
+
+    @Min(0)
+    private Integer poolMediumCount;
+
+    @Min(0)
+    private Integer poolHardCount;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -68,6 +78,12 @@ public class Exam {
     @JsonIgnore
     private List<ExamSession> examSessions;
     
+    public boolean isPooled() {
+        return (poolEasyCount != null && poolEasyCount > 0)
+                || (poolMediumCount != null && poolMediumCount > 0)
+                || (poolHardCount != null && poolHardCount > 0);
+    }
+    
     // Helper method to get category ID for JSON serialization
     public Long getCategoryId() {
         return examCategory != null ? examCategory.getId() : null;
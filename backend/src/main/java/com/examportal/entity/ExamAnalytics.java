@@ -0,0 +1,40 @@
+package com.examportal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Running aggregates over the completed sessions of one exam, maintained as sessions are graded.
+// The row with examId = 0 (GLOBAL) aggregates every exam. Percentages use the exam's total marks at
+// the time the session was counted; a full rebuild recomputes everything from exam_sessions.
+@Entity
+@Table(name = "exam_analytics")
+@Data
+public class ExamAnalytics {
+    public static final long GLOBAL = 0L;
+
+    @Id
+    @Column(name = "exam_id")
+    private Long examId;
+
+    @Column(nullable = false)
+    private Long attempts = 0L;
+
+    @Column(nullable = false)
+    private Long scoreSum = 0L;
+
+    @Column(nullable = false)
+    private Long scoreSquareSum = 0L;
+
+    @Column(nullable = false)
+    private Double percentageSum = 0.0;
+
+    @Column(nullable = false)
+    private Long passCount = 0L;
+
+    @Column(nullable = false)
+    private Long distinctStudents = 0L;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,38 @@
+package com.examportal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+// Result document of a completed session, written once after grading commits and served as-is by the result
+// detail endpoints. Dropped (and rebuilt on the next read) when a regrade changes the session's marks.
+@Entity
+@Table(name = "exam_result_documents",
+       indexes = @Index(name = "idx_exam_result_documents_exam", columnList = "exam_id, exam_session_id"))
+@Data
+@EntityListeners(AuditingEntityListener.class)
+public class ExamResultSnapshot {
+    @Id
+    @Column(name = "exam_session_id")
+    private Long examSessionId;
+
+    @Column(name = "exam_id", nullable = false)
+    private Long examId;
+
+    @Column(nullable = false)
+    private Long studentId;
+
+    // Gzipped JSON; LONGBLOB on MySQL and bytea on PostgreSQL, so large exams are not capped at 64 KB
+    @JdbcTypeCode(SqlTypes.LONG32VARBINARY)
+    @Column(nullable = false)
+    private byte[] document;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,34 @@
+package com.examportal.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// One non-empty bucket of an exam's score histogram: bucket is the percentage score in tenths of a
+// percent (0-1000). Maintained alongside exam_analytics; see ScoreHistogram.
+@Entity
+@Table(name = "exam_score_buckets")
+@IdClass(ExamScoreBucket.Key.class)
+@Data
+public class ExamScoreBucket {
+    @Id
+    @Column(name = "exam_id")
+    private Long examId;
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Long scoreCount = 0L;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long examId;
+        private Integer bucket;
+    }
+}
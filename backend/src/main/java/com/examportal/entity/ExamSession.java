@@ -12,7 +12,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "exam_sessions")
+// Indexes ending in (status, end_time, id) serve the admin results list in keyset order, unfiltered
+// or filtered by exam or student; (exam_id, status, id) serves the regrade's paging
+@Table(name = "exam_sessions",
+       indexes = {
+           @Index(name = "idx_exam_sessions_exam_status_id", columnList = "exam_id, status, id"),
+           @Index(name = "idx_exam_sessions_status_end", columnList = "status, end_time, id"),
+           @Index(name = "idx_exam_sessions_exam_status_end", columnList = "exam_id, status, end_time, id"),
+           @Index(name = "idx_exam_sessions_student_status_end", columnList = "student_id, status, end_time, id")
+       })
 @Data
 @EntityListeners(AuditingEntityListener.class)
 public class ExamSession {
@@ -43,6 +51,20 @@ public class ExamSession {
 
     private Integer obtainedMarks;
 
+    // Comma-separated ids of the questions drawn for this session; null when the exam has a fixed paper
+    @Column(columnDefinition = "TEXT")
+    @JsonIgnore
+    private String questionIds;
+
+    // Packed answers and correctness of a completed session (see AnswerVector); null until graded or backfilled
+    @Column(columnDefinition = "TEXT")
+    @JsonIgnore
+    private String answerVector;
+
+    @Column(columnDefinition = "TEXT")
+    @JsonIgnore
+    private String correctnessBitmap;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,44 @@
+package com.examportal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+// Durable grading queue entry; the row is deleted once the session has been graded
+@Entity
+@Table(name = "grading_tasks",
+       indexes = @Index(name = "idx_grading_tasks_status_available", columnList = "status, available_at"))
+@Data
+@EntityListeners(AuditingEntityListener.class)
+public class GradingTask {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exam_session_id", nullable = false, unique = true)
+    private Long examSessionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Status {
+        PENDING, FAILED
+    }
+}
@@ -10,7 +10,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "student_answers")
+@Table(name = "student_answers",
+       uniqueConstraints = @UniqueConstraint(name = "uk_student_answers_session_question",
+                                             columnNames = {"exam_session_id", "question_id"}))
 @Data
 @EntityListeners(AuditingEntityListener.class)
 public class StudentAnswer {
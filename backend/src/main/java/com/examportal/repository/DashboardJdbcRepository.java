@@ -0,0 +1,34 @@
+package com.examportal.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class DashboardJdbcRepository {
+
+    // Every dashboard counter in one round trip; completed and passed sessions come from the global
+    // exam_analytics row rather than a scan of exam_sessions
+    private static final String COUNTERS_SQL = "SELECT " +
+            "(SELECT COUNT(*) FROM exams WHERE is_active = TRUE), " +
+            "(SELECT COUNT(*) FROM students), " +
+            "(SELECT COUNT(*) FROM students WHERE status = 'ACTIVE'), " +
+            "(SELECT COUNT(*) FROM students WHERE status = 'INACTIVE'), " +
+            "(SELECT COUNT(*) FROM questions), " +
+            "(SELECT COALESCE(MAX(attempts), 0) FROM exam_analytics WHERE exam_id = 0), " +
+            "(SELECT COALESCE(MAX(pass_count), 0) FROM exam_analytics WHERE exam_id = 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // (activeExams, students, activeStudents, inactiveStudents, questions, completedSessions, passedSessions)
+    public long[] readCounters() {
+        return jdbcTemplate.queryForObject(COUNTERS_SQL, (rs, rowNum) -> {
+            long[] counters = new long[7];
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = rs.getLong(i + 1);
+            }
+            return counters;
+        });
+    }
+}
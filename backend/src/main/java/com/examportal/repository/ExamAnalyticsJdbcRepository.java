@@ -0,0 +1,159 @@
+package com.examportal.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ExamAnalyticsJdbcRepository {
+
+    private static final String COLUMNS =
+            "exam_id, attempts, score_sum, score_square_sum, percentage_sum, pass_count, distinct_students, updated_at";
+
+    // Adds one completed session to a row (the exam's or the global one); percentage and pass/fail are
+    // resolved against the exam row inside the statement
+    private static final String ADD_SESSION_SELECT =
+            "INSERT INTO exam_analytics (" + COLUMNS + ") " +
+            "SELECT ?, 1, ?, ?, ? * 100.0 / e.total_marks, CASE WHEN ? >= e.passing_marks THEN 1 ELSE 0 END, ?, ? " +
+            "FROM exams e WHERE e.id = ? ";
+
+    // Both rely on exam_id being the primary key
+    private static final String MYSQL_ADD_SESSION_SQL = ADD_SESSION_SELECT +
+            "ON DUPLICATE KEY UPDATE attempts = attempts + 1, score_sum = score_sum + VALUES(score_sum), " +
+            "score_square_sum = score_square_sum + VALUES(score_square_sum), " +
+            "percentage_sum = percentage_sum + VALUES(percentage_sum), pass_count = pass_count + VALUES(pass_count), " +
+            "distinct_students = distinct_students + VALUES(distinct_students), updated_at = VALUES(updated_at)";
+
+    private static final String POSTGRES_ADD_SESSION_SQL = ADD_SESSION_SELECT +
+            "ON CONFLICT (exam_id) DO UPDATE SET attempts = exam_analytics.attempts + 1, " +
+            "score_sum = exam_analytics.score_sum + EXCLUDED.score_sum, " +
+            "score_square_sum = exam_analytics.score_square_sum + EXCLUDED.score_square_sum, " +
+            "percentage_sum = exam_analytics.percentage_sum + EXCLUDED.percentage_sum, " +
+            "pass_count = exam_analytics.pass_count + EXCLUDED.pass_count, " +
+            "distinct_students = exam_analytics.distinct_students + EXCLUDED.distinct_students, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private static final String AGGREGATES =
+            "COUNT(*), COALESCE(SUM(COALESCE(es.obtained_marks, 0)), 0), " +
+            "COALESCE(SUM(COALESCE(es.obtained_marks, 0) * COALESCE(es.obtained_marks, 0)), 0), " +
+            "COALESCE(SUM(COALESCE(es.obtained_marks, 0) * 100.0 / e.total_marks), 0), " +
+            "COALESCE(SUM(CASE WHEN COALESCE(es.obtained_marks, 0) >= e.passing_marks THEN 1 ELSE 0 END), 0), " +
+            "COUNT(DISTINCT es.student_id), ? " +
+            "FROM exam_sessions es JOIN exams e ON e.id = es.exam_id WHERE es.status = 'COMPLETED'";
+
+    private static final String REBUILD_EXAM_SQL =
+            "INSERT INTO exam_analytics (" + COLUMNS + ") SELECT es.exam_id, " + AGGREGATES +
+            " AND es.exam_id = ? GROUP BY es.exam_id";
+
+    private static final String REBUILD_ALL_EXAMS_SQL =
+            "INSERT INTO exam_analytics (" + COLUMNS + ") SELECT es.exam_id, " + AGGREGATES + " GROUP BY es.exam_id";
+
+    // Sums the per-exam rows, so an exam rebuild does not rescan every exam's sessions; only the distinct
+    // student count has to go back to exam_sessions. Aggregates without GROUP BY always return one row,
+    // so the global row exists even with no sessions.
+    private static final String REBUILD_GLOBAL_SQL =
+            "INSERT INTO exam_analytics (" + COLUMNS + ") SELECT 0, COALESCE(SUM(attempts), 0), " +
+            "COALESCE(SUM(score_sum), 0), COALESCE(SUM(score_square_sum), 0), COALESCE(SUM(percentage_sum), 0), " +
+            "COALESCE(SUM(pass_count), 0), " +
+            "(SELECT COUNT(DISTINCT student_id) FROM exam_sessions WHERE status = 'COMPLETED'), ? " +
+            "FROM exam_analytics WHERE exam_id <> 0";
+
+    // Score histogram buckets: percentage in tenths of a percent, see ScoreHistogram
+    private static final String BUCKET = "ROUND(COALESCE(es.obtained_marks, 0) * 1000.0 / e.total_marks)";
+
+    private static final String ADD_SCORE_SELECT =
+            "INSERT INTO exam_score_buckets (exam_id, bucket, score_count) " +
+            "SELECT e.id, ROUND(? * 1000.0 / e.total_marks), 1 FROM exams e WHERE e.id = ? ";
+
+    private static final String MYSQL_ADD_SCORE_SQL = ADD_SCORE_SELECT +
+            "ON DUPLICATE KEY UPDATE score_count = score_count + 1";
+
+    private static final String POSTGRES_ADD_SCORE_SQL = ADD_SCORE_SELECT +
+            "ON CONFLICT (exam_id, bucket) DO UPDATE SET score_count = exam_score_buckets.score_count + 1";
+
+    private static final String REBUILD_BUCKETS_SQL =
+            "INSERT INTO exam_score_buckets (exam_id, bucket, score_count) SELECT es.exam_id, " + BUCKET + ", COUNT(*) " +
+            "FROM exam_sessions es JOIN exams e ON e.id = es.exam_id WHERE es.status = 'COMPLETED'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    // Counts one newly completed session into its exam's row and the global row
+    public void addSession(Long examId, int obtainedMarks, boolean firstForExam, boolean firstOverall) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long square = (long) obtainedMarks * obtainedMarks;
+        String addSessionSql = isPostgres() ? POSTGRES_ADD_SESSION_SQL : MYSQL_ADD_SESSION_SQL;
+        jdbcTemplate.update(addSessionSql, examId, obtainedMarks, square, obtainedMarks, obtainedMarks,
+                firstForExam ? 1 : 0, now, examId);
+        jdbcTemplate.update(addSessionSql, 0L, obtainedMarks, square, obtainedMarks, obtainedMarks,
+                firstOverall ? 1 : 0, now, examId);
+        jdbcTemplate.update(isPostgres() ? POSTGRES_ADD_SCORE_SQL : MYSQL_ADD_SCORE_SQL, obtainedMarks, examId);
+    }
+
+    public boolean hasScoreBuckets() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exam_score_buckets", Integer.class);
+        return rows != null && rows > 0;
+    }
+
+    // Rows are (examId, bucket, count); examIds null reads every exam's histogram
+    public List<Object[]> findScoreBuckets(List<Long> examIds) {
+        RowMapper<Object[]> mapper = (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getInt(2), rs.getLong(3)};
+        if (examIds == null) {
+            return jdbcTemplate.query("SELECT exam_id, bucket, score_count FROM exam_score_buckets", mapper);
+        }
+        if (examIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(String.format("SELECT exam_id, bucket, score_count FROM exam_score_buckets " +
+                "WHERE exam_id IN (%s)", String.join(", ", Collections.nCopies(examIds.size(), "?"))),
+                mapper, examIds.toArray());
+    }
+
+    // Whether the student has no other completed session, of this exam (examId set) or of any exam
+    public boolean isFirstCompletion(Long studentId, Long examId, Long sessionId) {
+        Integer others = examId != null
+                ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exam_sessions WHERE student_id = ? AND exam_id = ? " +
+                        "AND status = 'COMPLETED' AND id <> ?", Integer.class, studentId, examId, sessionId)
+                : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exam_sessions WHERE student_id = ? " +
+                        "AND status = 'COMPLETED' AND id <> ?", Integer.class, studentId, sessionId);
+        return others == null || others == 0;
+    }
+
+    public void rebuildExam(Long examId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM exam_analytics WHERE exam_id IN (?, 0)", examId);
+        jdbcTemplate.update(REBUILD_EXAM_SQL, now, examId);
+        jdbcTemplate.update(REBUILD_GLOBAL_SQL, now);
+        jdbcTemplate.update("DELETE FROM exam_score_buckets WHERE exam_id = ?", examId);
+        jdbcTemplate.update(REBUILD_BUCKETS_SQL + " AND es.exam_id = ? GROUP BY es.exam_id, " + BUCKET, examId);
+    }
+
+    public void rebuildAll() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM exam_analytics");
+        jdbcTemplate.update(REBUILD_ALL_EXAMS_SQL, now);
+        jdbcTemplate.update(REBUILD_GLOBAL_SQL, now);
+        jdbcTemplate.update("DELETE FROM exam_score_buckets");
+        jdbcTemplate.update(REBUILD_BUCKETS_SQL + " GROUP BY es.exam_id, " + BUCKET);
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase().contains("postgres");
+            postgres = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package com.examportal.repository;
+
+import com.examportal.entity.ExamAnalytics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExamAnalyticsRepository extends JpaRepository<ExamAnalytics, Long> {
+}
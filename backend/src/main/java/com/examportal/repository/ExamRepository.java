@@ -10,20 +10,39 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, Long> {
     List<Exam> findByExamCategory(ExamCategory examCategory);
     List<Exam> findByIsActiveTrue();
+    
+    // Category fetched with the exam so the result can be shared outside the loading session
+    @Query("SELECT e FROM Exam e JOIN FETCH e.examCategory WHERE e.id = :id")
+    Optional<Exam> findWithCategoryById(@Param("id") Long id);
     Page<Exam> findByIsActiveTrue(Pageable pageable);
     
+    // Active exams the student has not completed, as one anti-join instead of filtering in memory
+    @Query("SELECT e FROM Exam e WHERE e.isActive = true AND NOT EXISTS " +
+           "(SELECT 1 FROM ExamSession s WHERE s.exam = e AND s.student.id = :studentId " +
+           "AND s.status = 'COMPLETED') ORDER BY e.id")
+    List<Exam> findAvailableForStudent(@Param("studentId") Long studentId);
+    
+    @Query("SELECT e FROM Exam e JOIN FETCH e.examCategory WHERE e.isActive = true ORDER BY e.id")
+    List<Exam> findActiveOrderById();
+    
     @Query("SELECT COUNT(e) FROM Exam e WHERE e.isActive = true")
     long countActiveExams();
     
-    List<Exam> findTop3ByOrderByCreatedAtDesc();
+    // (id, title, createdAt) of the latest exams, for seeding the activity feed
+    @Query("SELECT e.id, e.title, e.createdAt FROM Exam e ORDER BY e.createdAt DESC")
+    List<Object[]> findRecentlyCreated(Pageable pageable);
     
     @Query("SELECT e FROM Exam e WHERE e.examCategory.id = :categoryId AND e.isActive = true")
     List<Exam> findActiveExamsByCategory(@Param("categoryId") Long categoryId);
     
     long countByExamCategory(ExamCategory examCategory);
+
+    @Query("SELECT e.id FROM Exam e WHERE e.examCategory.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
 }
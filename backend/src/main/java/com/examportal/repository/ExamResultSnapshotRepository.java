@@ -0,0 +1,16 @@
+package com.examportal.repository;
+
+import com.examportal.entity.ExamResultSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExamResultSnapshotRepository extends JpaRepository<ExamResultSnapshot, Long> {
+    
+    @Modifying
+    @Query("DELETE FROM ExamResultSnapshot s WHERE s.examId = :examId AND s.examSessionId BETWEEN :fromId AND :toId")
+    int deleteByExamIdAndSessionRange(@Param("examId") Long examId, @Param("fromId") Long fromId, @Param("toId") Long toId);
+}
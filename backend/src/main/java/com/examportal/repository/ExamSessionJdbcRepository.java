@@ -0,0 +1,159 @@
+package com.examportal.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ExamSessionJdbcRepository {
+
+    private static final String REGRADE_ANSWERS_SQL =
+            "UPDATE student_answers SET is_correct = CASE WHEN selected_answer = " +
+            "(SELECT q.correct_answer FROM questions q WHERE q.id = student_answers.question_id) THEN TRUE ELSE FALSE END " +
+            "WHERE exam_session_id BETWEEN ? AND ? " +
+            "AND question_id IN (SELECT q.id FROM questions q WHERE q.exam_id = ?)";
+
+    private static final String REGRADE_QUESTION_ANSWERS_SQL =
+            "UPDATE student_answers SET is_correct = CASE WHEN selected_answer = " +
+            "(SELECT q.correct_answer FROM questions q WHERE q.id = student_answers.question_id) THEN TRUE ELSE FALSE END " +
+            "WHERE exam_session_id BETWEEN ? AND ? AND question_id = ?";
+
+    private static final String LOCK_OPEN_SESSIONS_SQL =
+            "SELECT id FROM exam_sessions WHERE status = 'IN_PROGRESS' AND id IN (%s) FOR UPDATE";
+
+    private static final String EXPIRE_UNANSWERED_SQL =
+            "UPDATE exam_sessions SET status = 'EXPIRED', end_time = ?, updated_at = ? " +
+            "WHERE id IN (%s) AND NOT EXISTS (SELECT 1 FROM student_answers sa " +
+            "WHERE sa.exam_session_id = exam_sessions.id AND sa.selected_answer IS NOT NULL)";
+
+    private static final String SUBMIT_ANSWERED_SQL =
+            "UPDATE exam_sessions SET status = 'SUBMITTED', end_time = ?, updated_at = ? " +
+            "WHERE id IN (%s) AND status = 'IN_PROGRESS'";
+
+    private static final String ENQUEUE_GRADING_SQL =
+            "INSERT INTO grading_tasks (exam_session_id, status, attempts, available_at, created_at) " +
+            "SELECT id, 'PENDING', 0, ?, ? FROM exam_sessions WHERE id IN (%s) AND status = 'SUBMITTED'";
+
+    private static final String SAVE_ANSWER_VECTOR_SQL =
+            "UPDATE exam_sessions SET answer_vector = ?, correctness_bitmap = ? WHERE id = ?";
+
+    private static final String SAVE_GRADE_SQL =
+            "UPDATE exam_sessions SET obtained_marks = ?, answer_vector = ?, correctness_bitmap = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Next page of the exam's completed sessions in id order; served by idx_exam_sessions_exam_status_id
+    public List<Long> findCompletedSessionIdPage(Long examId, long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM exam_sessions WHERE exam_id = ? AND status = 'COMPLETED' " +
+                "AND id > ? ORDER BY id LIMIT ?", Long.class, examId, afterId, limit);
+    }
+
+    // Recomputes isCorrect for the exam's answers in a session id range; limited to one question when questionId is set
+    public int regradeAnswers(Long examId, Long questionId, long fromSessionId, long toSessionId) {
+        if (questionId != null) {
+            return jdbcTemplate.update(REGRADE_QUESTION_ANSWERS_SQL, fromSessionId, toSessionId, questionId);
+        }
+        return jdbcTemplate.update(REGRADE_ANSWERS_SQL, fromSessionId, toSessionId, examId);
+    }
+
+    // Closes overdue sessions that are still IN_PROGRESS: unanswered ones become EXPIRED, the rest are
+    // SUBMITTED and queued for grading. Rows are locked first, so a concurrent manual submit either
+    // wins (and the session is skipped here) or waits. Returns {expired, submitted}.
+    public int[] closeOverdueSessions(List<Long> sessionIds, LocalDateTime endTime) {
+        if (sessionIds.isEmpty()) {
+            return new int[]{0, 0};
+        }
+        List<Long> open = jdbcTemplate.queryForList(String.format(LOCK_OPEN_SESSIONS_SQL, placeholders(sessionIds.size())),
+                Long.class, sessionIds.toArray());
+        if (open.isEmpty()) {
+            return new int[]{0, 0};
+        }
+
+        String in = placeholders(open.size());
+        Timestamp now = Timestamp.valueOf(endTime);
+        int expired = jdbcTemplate.update(String.format(EXPIRE_UNANSWERED_SQL, in), withIds(open, now, now));
+        int submitted = jdbcTemplate.update(String.format(SUBMIT_ANSWERED_SQL, in), withIds(open, now, now));
+        if (submitted > 0) {
+            jdbcTemplate.update(String.format(ENQUEUE_GRADING_SQL, in), withIds(open, now, now));
+        }
+        return new int[]{expired, submitted};
+    }
+
+    // Next page of completed sessions that still have no answer vector, in id order
+    public List<Long> findCompletedWithoutAnswerVector(long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM exam_sessions WHERE status = 'COMPLETED' " +
+                "AND answer_vector IS NULL AND id > ? ORDER BY id LIMIT ?", Long.class, afterId, limit);
+    }
+
+    public List<Long> findCompletedSessionIds(Long examId, long fromSessionId, long toSessionId) {
+        return jdbcTemplate.queryForList("SELECT id FROM exam_sessions WHERE exam_id = ? AND status = 'COMPLETED' " +
+                "AND id BETWEEN ? AND ?", Long.class, examId, fromSessionId, toSessionId);
+    }
+
+    // Rows are (sessionId, examId, questionIds)
+    public List<Object[]> findSessionPapers(List<Long> sessionIds) {
+        return jdbcTemplate.query(String.format("SELECT id, exam_id, question_ids FROM exam_sessions WHERE id IN (%s)",
+                        placeholders(sessionIds.size())),
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3)},
+                sessionIds.toArray());
+    }
+
+    // Rows are (sessionId, questionId, selectedAnswer, isCorrect)
+    public List<Object[]> findAnswerRows(List<Long> sessionIds) {
+        return jdbcTemplate.query(String.format("SELECT exam_session_id, question_id, selected_answer, is_correct " +
+                        "FROM student_answers WHERE exam_session_id IN (%s)", placeholders(sessionIds.size())),
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBoolean(4)},
+                sessionIds.toArray());
+    }
+
+    // Rows are (answerVector, correctnessBitmap, sessionId)
+    public void saveAnswerVectors(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(SAVE_ANSWER_VECTOR_SQL, rows);
+        }
+    }
+
+    // Rows are (obtainedMarks, answerVector, correctnessBitmap, sessionId)
+    public void saveGrades(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(SAVE_GRADE_SQL, rows);
+        }
+    }
+
+    // Streams (obtainedMarks, answerVector, correctnessBitmap) of the exam's completed sessions
+    public void forEachAnswerVector(Long examId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT obtained_marks, answer_vector, correctness_bitmap FROM exam_sessions " +
+                "WHERE exam_id = ? AND status = 'COMPLETED' AND answer_vector IS NOT NULL", handler, examId);
+    }
+
+    // Streams (sessionId, examId, studentId, obtainedMarks, endTime, totalMarks) of completed sessions,
+    // of one exam or (examId null) of all
+    public void forEachCompletedScore(Long examId, RowCallbackHandler handler) {
+        String sql = "SELECT es.id, es.exam_id, es.student_id, COALESCE(es.obtained_marks, 0), es.end_time, e.total_marks " +
+                "FROM exam_sessions es JOIN exams e ON e.id = es.exam_id WHERE es.status = 'COMPLETED'";
+        if (examId != null) {
+            jdbcTemplate.query(sql + " AND es.exam_id = ?", handler, examId);
+        } else {
+            jdbcTemplate.query(sql, handler);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] withIds(List<Long> ids, Object... leading) {
+        List<Object> args = new ArrayList<>(leading.length + ids.size());
+        Collections.addAll(args, leading);
+        args.addAll(ids);
+        return args.toArray();
+    }
+}
@@ -1,9 +1,14 @@
 package com.examportal.repository;
 
+import com.examportal.dto.StudentResultView;
 import com.examportal.entity.Exam;
 import com.examportal.entity.ExamSession;
 import com.examportal.entity.Student;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,14 +17,38 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ExamSessionRepository extends JpaRepository<ExamSession, Long> {
+public interface ExamSessionRepository extends JpaRepository<ExamSession, Long>, JpaSpecificationExecutor<ExamSession> {
     List<ExamSession> findByStudent(Student student);
     List<ExamSession> findByExam(Exam exam);
     Optional<ExamSession> findByStudentAndExam(Student student, Exam exam);
     
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT es FROM ExamSession es WHERE es.id = :id")
+    Optional<ExamSession> findByIdForUpdate(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT es FROM ExamSession es WHERE es.id = :id")
+    Optional<ExamSession> findByIdForShare(@Param("id") Long id);
+    
     @Query("SELECT es FROM ExamSession es WHERE es.student.id = :studentId AND es.status = :status")
     List<ExamSession> findByStudentIdAndStatus(@Param("studentId") Long studentId, @Param("status") ExamSession.Status status);
     
+    // Completed results of a student, newest first, with percentage and pass/fail computed by the query.
+    // Keyset paged: pass the last id of the previous page as beforeId (Long.MAX_VALUE for the first page).
+    @Query("SELECT new com.examportal.dto.StudentResultView(es.id, e.title, c.name, COALESCE(es.obtainedMarks, 0), " +
+           "e.totalMarks, e.passingMarks, ROUND(COALESCE(es.obtainedMarks, 0) * 100.0 / e.totalMarks, 1), " +
+           "CASE WHEN COALESCE(es.obtainedMarks, 0) >= e.passingMarks THEN 'PASSED' ELSE 'FAILED' END, " +
+           "es.endTime, e.durationMinutes) " +
+           "FROM ExamSession es JOIN es.exam e JOIN e.examCategory c " +
+           "WHERE es.student.id = :studentId AND es.status = 'COMPLETED' AND es.id < :beforeId ORDER BY es.id DESC")
+    List<StudentResultView> findResultViews(@Param("studentId") Long studentId, @Param("beforeId") Long beforeId, Pageable pageable);
+    
+    // (completed count, passed count, average percentage) over a student's whole history
+    @Query("SELECT COUNT(es), SUM(CASE WHEN COALESCE(es.obtainedMarks, 0) >= e.passingMarks THEN 1 ELSE 0 END), " +
+           "AVG(COALESCE(es.obtainedMarks, 0) * 100.0 / e.totalMarks) " +
+           "FROM ExamSession es JOIN es.exam e WHERE es.student.id = :studentId AND es.status = 'COMPLETED'")
+    List<Object[]> summarizeResults(@Param("studentId") Long studentId);
+    
     @Query("SELECT es FROM ExamSession es WHERE es.exam.id = :examId AND es.status = 'COMPLETED'")
     List<ExamSession> findCompletedSessionsByExamId(@Param("examId") Long examId);
     
@@ -32,5 +61,19 @@ public interface ExamSessionRepository extends JpaRepository<ExamSession, Long>
     @Query("SELECT AVG(es.obtainedMarks) FROM ExamSession es WHERE es.exam.id = :examId AND es.status = 'COMPLETED'")
     Double getAverageMarksByExamId(@Param("examId") Long examId);
     
-    List<ExamSession> findTop5ByStatusOrderByEndTimeDesc(ExamSession.Status status);
+    // (id, examId, studentId, startTime, durationMinutes, questionIds) of open sessions, for the active session registry
+    @Query("SELECT es.id, e.id, es.student.id, es.startTime, e.durationMinutes, es.questionIds " +
+           "FROM ExamSession es JOIN es.exam e WHERE es.status = 'IN_PROGRESS'")
+    List<Object[]> findActiveSessionRows();
+    
+    @Query("SELECT es.id, e.id, es.student.id, es.startTime, e.durationMinutes, es.questionIds " +
+           "FROM ExamSession es JOIN es.exam e WHERE es.id = :id AND es.status = 'IN_PROGRESS'")
+    List<Object[]> findActiveSessionRowById(@Param("id") Long id);
+    
+    // (id, studentName, examTitle, obtainedMarks, totalMarks, passingMarks, endTime) of the latest
+    // completions, read in (status, end_time, id) index order, for seeding the activity feed
+    @Query("SELECT es.id, s.fullName, e.title, COALESCE(es.obtainedMarks, 0), e.totalMarks, e.passingMarks, es.endTime " +
+           "FROM ExamSession es JOIN es.student s JOIN es.exam e WHERE es.status = 'COMPLETED' " +
+           "ORDER BY es.endTime DESC, es.id DESC")
+    List<Object[]> findRecentCompletions(Pageable pageable);
 }
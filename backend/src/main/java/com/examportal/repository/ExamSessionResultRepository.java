@@ -0,0 +1,45 @@
+package com.examportal.repository;
+
+import com.examportal.dto.AdminResultView;
+import com.examportal.entity.ExamSession;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Admin results as projections in (endTime DESC, id DESC) order, read through the exam_sessions
+// (status, end_time, id) indexes; the page is cut with LIMIT and no count query runs.
+@Repository
+public class ExamSessionResultRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<AdminResultView> findResults(Specification<ExamSession> spec, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AdminResultView> query = cb.createQuery(AdminResultView.class);
+        Root<ExamSession> session = query.from(ExamSession.class);
+        Path<Object> student = session.get("student");
+        Path<Object> exam = session.get("exam");
+        query.select(cb.construct(AdminResultView.class,
+                session.get("id"), student.get("id"), student.get("fullName"), student.get("email"),
+                exam.get("id"), exam.get("title"), cb.coalesce(session.<Integer>get("obtainedMarks"), 0),
+                exam.get("totalMarks"), exam.get("passingMarks"), session.get("endTime"), exam.get("durationMinutes")));
+        Predicate predicate = spec.toPredicate(session, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(session.get("endTime")), cb.desc(session.get("id")));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.examportal.repository;
+
+import com.examportal.entity.ExamSession;
+import jakarta.persistence.criteria.Expression;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+// Filters for the admin results list; combine with Specification.where(...).and(...). Every filter
+// is null-safe: a null argument matches everything.
+public final class ExamSessionSpecifications {
+
+    private ExamSessionSpecifications() {
+    }
+
+    public static Specification<ExamSession> completed() {
+        return (session, query, cb) -> cb.equal(session.get("status"), ExamSession.Status.COMPLETED);
+    }
+
+    public static Specification<ExamSession> forExam(Long examId) {
+        return (session, query, cb) -> examId == null ? null : cb.equal(session.get("exam").get("id"), examId);
+    }
+
+    public static Specification<ExamSession> forStudent(Long studentId) {
+        return (session, query, cb) -> studentId == null ? null : cb.equal(session.get("student").get("id"), studentId);
+    }
+
+    // Percentage score range, inclusive; compared as obtained * 100 against bound * total marks
+    public static Specification<ExamSession> scoreBetween(Double minPercentage, Double maxPercentage) {
+        return (session, query, cb) -> {
+            if (minPercentage == null && maxPercentage == null) {
+                return null;
+            }
+            Expression<Integer> obtained = cb.coalesce(session.<Integer>get("obtainedMarks"), 0);
+            Expression<Integer> totalMarks = session.get("exam").get("totalMarks");
+            Expression<Number> scaled = cb.prod(obtained, 100.0);
+            if (minPercentage == null) {
+                return cb.le(scaled, cb.prod(totalMarks, maxPercentage));
+            }
+            if (maxPercentage == null) {
+                return cb.ge(scaled, cb.prod(totalMarks, minPercentage));
+            }
+            return cb.and(cb.ge(scaled, cb.prod(totalMarks, minPercentage)), cb.le(scaled, cb.prod(totalMarks, maxPercentage)));
+        };
+    }
+
+    public static Specification<ExamSession> passed(Boolean passed) {
+        return (session, query, cb) -> {
+            if (passed == null) {
+                return null;
+            }
+            Expression<Integer> obtained = cb.coalesce(session.<Integer>get("obtainedMarks"), 0);
+            Expression<Integer> passingMarks = session.get("exam").get("passingMarks");
+            return passed ? cb.ge(obtained, passingMarks) : cb.lt(obtained, passingMarks);
+        };
+    }
+
+    // Completion time in [from, to)
+    public static Specification<ExamSession> completedBetween(LocalDateTime from, LocalDateTime to) {
+        return (session, query, cb) -> {
+            if (from == null && to == null) {
+                return null;
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(session.get("endTime"), from);
+            }
+            if (from == null) {
+                return cb.lessThan(session.get("endTime"), to);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(session.get("endTime"), from), cb.lessThan(session.get("endTime"), to));
+        };
+    }
+
+    // Keyset position for the (endTime DESC, id DESC) order: rows strictly after the given one
+    public static Specification<ExamSession> before(LocalDateTime endTime, Long id) {
+        return (session, query, cb) -> {
+            if (endTime == null || id == null) {
+                return null;
+            }
+            return cb.or(cb.lessThan(session.get("endTime"), endTime),
+                    cb.and(cb.equal(session.get("endTime"), endTime), cb.lessThan(session.get("id"), id)));
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.examportal.repository;
+
+import com.examportal.entity.GradingTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GradingTaskRepository extends JpaRepository<GradingTask, Long> {
+    
+    // Rows locked by another worker are skipped instead of waited on
+    @Query(value = "SELECT * FROM grading_tasks WHERE status = 'PENDING' AND available_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<GradingTask> claimPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Query(value = "SELECT * FROM grading_tasks WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<GradingTask> claimById(@Param("id") Long id);
+    
+    long countByStatus(GradingTask.Status status);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
@@ -22,4 +23,22 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     
     @Query("SELECT q FROM Question q WHERE q.exam.id = :examId ORDER BY q.id")
     List<Question> findByExamIdOrderById(@Param("examId") Long examId);
+    
+    @Query("SELECT q.id, q.correctAnswer, q.marks FROM Question q WHERE q.exam.id = :examId ORDER BY q.id")
+    List<Object[]> findGradingKeyRowsByExamId(@Param("examId") Long examId);
+    
+    // Row layout of both: id, questionText, optionA-D, correctAnswer, marks
+    @Query("SELECT q.id, q.questionText, q.optionA, q.optionB, q.optionC, q.optionD, q.correctAnswer, q.marks " +
+           "FROM Question q WHERE q.exam.id = :examId ORDER BY q.id")
+    List<Object[]> findResultRowsByExamId(@Param("examId") Long examId);
+    
+    @Query("SELECT q.id, q.questionText, q.optionA, q.optionB, q.optionC, q.optionD, q.correctAnswer, q.marks " +
+           "FROM Question q WHERE q.exam.id = :examId AND q.id IN :ids ORDER BY q.id")
+    List<Object[]> findResultRowsByExamIdAndIds(@Param("examId") Long examId, @Param("ids") List<Long> ids);
+    
+    @Query("SELECT q.id, q.difficultyLevel FROM Question q WHERE q.exam.id = :examId ORDER BY q.id")
+    List<Object[]> findPoolRowsByExamId(@Param("examId") Long examId);
+    
+    @Query("SELECT q.exam.id FROM Question q WHERE q.id = :questionId")
+    Optional<Long> findExamIdByQuestionId(@Param("questionId") Long questionId);
 }
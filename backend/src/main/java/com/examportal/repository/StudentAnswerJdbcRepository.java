@@ -0,0 +1,65 @@
+package com.examportal.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class StudentAnswerJdbcRepository {
+
+    // Correctness is resolved against the question row inside the statement, so no entity is loaded.
+    // Rows are only produced while the session is IN_PROGRESS and the question belongs to its exam.
+    private static final String UPSERT_SELECT =
+            "INSERT INTO student_answers (exam_session_id, question_id, selected_answer, is_correct, created_at) " +
+            "SELECT es.id, q.id, ?, CASE WHEN q.correct_answer = ? THEN TRUE ELSE FALSE END, ? " +
+            "FROM exam_sessions es JOIN questions q ON q.exam_id = es.exam_id " +
+            "WHERE es.id = ? AND q.id = ? AND es.status = 'IN_PROGRESS' ";
+
+    // Both rely on the uk_student_answers_session_question unique key
+    private static final String MYSQL_UPSERT_SQL = UPSERT_SELECT +
+            "ON DUPLICATE KEY UPDATE selected_answer = VALUES(selected_answer), is_correct = VALUES(is_correct)";
+
+    private static final String POSTGRES_UPSERT_SQL = UPSERT_SELECT +
+            "ON CONFLICT (exam_session_id, question_id) " +
+            "DO UPDATE SET selected_answer = EXCLUDED.selected_answer, is_correct = EXCLUDED.is_correct";
+
+    private static final int[] UPSERT_ARG_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String upsertSql;
+
+    // Writes all answers of one session as a single JDBC batch
+    public void saveAnswers(Long sessionId, Map<Long, String> answers) {
+        if (answers.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(answers.size());
+        answers.forEach((questionId, selectedAnswer) ->
+                batch.add(new Object[]{selectedAnswer, selectedAnswer, now, sessionId, questionId}));
+
+        jdbcTemplate.batchUpdate(getUpsertSql(), batch, UPSERT_ARG_TYPES);
+    }
+
+    private String getUpsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            sql = product != null && product.toLowerCase().contains("postgres") ? POSTGRES_UPSERT_SQL : MYSQL_UPSERT_SQL;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
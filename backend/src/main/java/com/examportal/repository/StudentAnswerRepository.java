@@ -19,9 +19,17 @@ public interface StudentAnswerRepository extends JpaRepository<StudentAnswer, Lo
     @Query("SELECT sa FROM StudentAnswer sa WHERE sa.examSession.id = :sessionId")
     List<StudentAnswer> findByExamSessionId(@Param("sessionId") Long sessionId);
     
+    @Query("SELECT sa.question.id, sa.selectedAnswer FROM StudentAnswer sa WHERE sa.examSession.id = :sessionId")
+    List<Object[]> findSelectedAnswersBySessionId(@Param("sessionId") Long sessionId);
+    
     @Query("SELECT COUNT(sa) FROM StudentAnswer sa WHERE sa.examSession.id = :sessionId AND sa.isCorrect = true")
     long countCorrectAnswersBySessionId(@Param("sessionId") Long sessionId);
     
     @Query("SELECT COUNT(sa) FROM StudentAnswer sa WHERE sa.examSession.id = :sessionId AND sa.selectedAnswer IS NOT NULL")
     long countAnsweredQuestionsBySessionId(@Param("sessionId") Long sessionId);
+    
+    // (sessionId, questionId, selectedAnswer) of every answered question in open sessions, for rebuilding the active session registry
+    @Query("SELECT sa.examSession.id, sa.question.id, sa.selectedAnswer FROM StudentAnswer sa " +
+           "WHERE sa.examSession.status = 'IN_PROGRESS' AND sa.selectedAnswer IS NOT NULL")
+    List<Object[]> findAnswerRowsOfActiveSessions();
 }
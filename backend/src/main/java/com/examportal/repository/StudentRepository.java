@@ -24,5 +24,7 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     @Query("SELECT COUNT(s) FROM Student s WHERE s.status = :status")
     long countByStatus(@Param("status") Student.Status status);
     
-    List<Student> findTop3ByOrderByCreatedAtDesc();
+    // (id, fullName, createdAt) of the latest registrations, for seeding the activity feed
+    @Query("SELECT s.id, s.fullName, s.createdAt FROM Student s ORDER BY s.createdAt DESC")
+    List<Object[]> findRecentlyRegistered(Pageable pageable);
 }
@@ -0,0 +1,471 @@
+package com.examportal.service;
+
+import com.examportal.entity.ExamSession;
+import com.examportal.repository.ExamSessionRepository;
+import com.examportal.repository.StudentAnswerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// In-memory view of IN_PROGRESS sessions, split over lock-striped shards, so answer writes can be
+// checked (state, owner, deadline, question) and counted without reading exam_sessions.
+// Filled by startExam and a cold rebuild at startup; a miss falls back to one projection query.
+// Closed sessions are kept as tombstones for a while so retries against them stay off the database.
+// Each session's current answers live off-heap in SessionAnswerArena and nowhere else in memory: an
+// accepted answer is marked dirty there, and AnswerBuffer drains the dirty entries into student_answers.
+@Component
+@Slf4j
+public class ActiveSessionRegistry {
+
+    private static final int SHARDS = 64;
+    private static final long TOMBSTONE_TTL_MS = 10 * 60 * 1000L;
+
+    private final ExamSessionRepository examSessionRepository;
+    private final StudentAnswerRepository studentAnswerRepository;
+    private final GradingKeyCache gradingKeyCache;
+    private final SessionAnswerArena answerArena;
+    private final Shard[] shards = new Shard[SHARDS];
+    // Sessions holding dirty answers, and the number of those answers; updated under the shard lock
+    private final Set<Long> dirtySessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+
+    @Value("${exam.session-expiry.grace-seconds:30}")
+    private long graceSeconds;
+
+    public ActiveSessionRegistry(ExamSessionRepository examSessionRepository,
+                                 StudentAnswerRepository studentAnswerRepository,
+                                 GradingKeyCache gradingKeyCache,
+                                 SessionAnswerArena answerArena) {
+        this.examSessionRepository = examSessionRepository;
+        this.studentAnswerRepository = studentAnswerRepository;
+        this.gradingKeyCache = gradingKeyCache;
+        this.answerArena = answerArena;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    private static final class Shard {
+        final Map<Long, ActiveSession> sessions = new HashMap<>();
+    }
+
+    // Mutable fields are guarded by the session's shard lock
+    private static final class ActiveSession {
+        final Long examId;
+        final Long studentId;
+        final long deadlineMillis;
+        // Sorted ids of the session's questions (its draw, or the exam's questions at start), shared
+        // between sessions of a fixed-paper exam; the position of an id is its index in the answer vector
+        final long[] questionIds;
+        long answerHandle = SessionAnswerArena.NO_HANDLE;
+        int answeredCount;
+        int dirtyCount;
+        // Highest client sequence number applied per question; allocated on the first sequenced write
+        long[] clientSeqs;
+        long closedAtMillis;
+
+        ActiveSession(Long examId, Long studentId, long deadlineMillis, long[] questionIds) {
+            this.examId = examId;
+            this.studentId = studentId;
+            this.deadlineMillis = deadlineMillis;
+            this.questionIds = questionIds;
+        }
+
+        static ActiveSession tombstone() {
+            ActiveSession closed = new ActiveSession(null, null, 0, null);
+            closed.closedAtMillis = System.currentTimeMillis();
+            return closed;
+        }
+
+        boolean isClosed() {
+            return closedAtMillis != 0;
+        }
+    }
+
+    // Cold rebuild; runs before other startup listeners that read the registry
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        List<Object[]> rows = examSessionRepository.findActiveSessionRows();
+        for (Object[] row : rows) {
+            put((Long) row[0], toActiveSession(row));
+        }
+        for (Object[] answer : studentAnswerRepository.findAnswerRowsOfActiveSessions()) {
+            Shard shard = shardFor((Long) answer[0]);
+            synchronized (shard) {
+                ActiveSession session = shard.sessions.get((Long) answer[0]);
+                if (session != null && !session.isClosed()) {
+                    loadAnswer(session, (Long) answer[1], (String) answer[2]);
+                }
+            }
+        }
+        log.info("Registered {} active exam sessions", rows.size());
+    }
+
+    public void register(ExamSession session) {
+        put(session.getId(), new ActiveSession(session.getExam().getId(), session.getStudent().getId(),
+                toMillis(session.getStartTime().plusMinutes(session.getExam().getDurationMinutes())),
+                questionIdsOf(session.getExam().getId(), QuestionPoolIndex.decode(session.getQuestionIds()))));
+    }
+
+    // Closes the entry in place, so writers already holding it see it closed; the answers accepted before
+    // this stay dirty in the entry until AnswerBuffer flushes them. Inside a transaction the entry is only released once it
+    // commits, and reopened if it rolls back (the session is then still IN_PROGRESS in the database).
+    public void close(Long sessionId) {
+        Shard shard = shardFor(sessionId);
+        ActiveSession session;
+        synchronized (shard) {
+            session = shard.sessions.get(sessionId);
+            if (session == null) {
+                session = ActiveSession.tombstone();
+                shard.sessions.put(sessionId, session);
+            } else if (!session.isClosed()) {
+                session.closedAtMillis = System.currentTimeMillis();
+            } else {
+                return;
+            }
+        }
+
+        ActiveSession closed = session;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(sessionId, closed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    release(sessionId, closed);
+                } else {
+                    reopen(sessionId, closed);
+                }
+            }
+        });
+    }
+
+    public static final long NO_CLIENT_SEQ = 0;
+
+    // Validates an answer write and records it; studentId is null when the caller is not authenticated.
+    // Returns false, without recording anything, when a write with the same or a higher client sequence
+    // number has already been applied to this question (a retried or reordered request). Sequence numbers
+    // are only remembered in memory, so a session reloaded after a restart accepts the next write again.
+    public boolean recordAnswer(Long sessionId, Long studentId, Long questionId, String selectedAnswer, long clientSeq) {
+        ActiveSession session = getOrLoad(sessionId);
+        // Everything checked here is immutable, so only the answer vector needs the shard lock
+        if (session.isClosed()) {
+            throw new RuntimeException("Exam session is not in progress");
+        }
+        if (studentId != null && !studentId.equals(session.studentId)) {
+            throw new RuntimeException("Exam session does not belong to this student");
+        }
+        if (System.currentTimeMillis() > session.deadlineMillis + graceSeconds * 1000) {
+            throw new RuntimeException("Exam time is over");
+        }
+        int index = Arrays.binarySearch(session.questionIds, questionId);
+        if (index < 0) {
+            throw new RuntimeException("Question is not part of this exam session");
+        }
+
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            if (session.isClosed()) {
+                throw new RuntimeException("Exam session is not in progress");
+            }
+            if (clientSeq != NO_CLIENT_SEQ) {
+                if (session.clientSeqs == null) {
+                    session.clientSeqs = new long[session.questionIds.length];
+                }
+                if (clientSeq <= session.clientSeqs[index]) {
+                    return false;
+                }
+                session.clientSeqs[index] = clientSeq;
+            }
+            setAnswer(session, index, SessionAnswerArena.encode(selectedAnswer));
+            markDirty(sessionId, session, index);
+            return true;
+        }
+    }
+
+    // The session's current answers (questionId -> A-D), or null when it is not active
+    public Map<Long, String> getAnswers(Long sessionId) {
+        ActiveSession session = getOrLoad(sessionId);
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            if (session.isClosed()) {
+                return null;
+            }
+            Map<Long, String> answers = new HashMap<>();
+            for (int i = 0; i < session.questionIds.length && answers.size() < session.answeredCount; i++) {
+                int value = answerArena.get(session.answerHandle, i);
+                if (value != 0) {
+                    answers.put(session.questionIds[i], SessionAnswerArena.decode(value));
+                }
+            }
+            return answers;
+        }
+    }
+
+    // Number of answered questions, or -1 when the session is not active
+    public int getAnsweredCount(Long sessionId) {
+        ActiveSession session = getOrLoad(sessionId);
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            return session.isClosed() ? -1 : session.answeredCount;
+        }
+    }
+
+    // Answers changed since the last drain (questionId -> A-D, null when cleared), now marked clean; empty when
+    // there are none. Closed entries still holding their vector are drained too, which is how a submit
+    // flushes after closing the session.
+    public Map<Long, String> drainDirty(Long sessionId) {
+        return dirtyAnswers(sessionId, true);
+    }
+
+    // Same as drainDirty, but the answers stay dirty
+    public Map<Long, String> getDirty(Long sessionId) {
+        return dirtyAnswers(sessionId, false);
+    }
+
+    // Marks drained answers dirty again after their write failed; the entry's current value is what gets
+    // written next, so answers recorded since the drain are not overwritten
+    public void markDirty(Long sessionId, Collection<Long> questionIds) {
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            ActiveSession session = shard.sessions.get(sessionId);
+            if (session == null || session.answerHandle == SessionAnswerArena.NO_HANDLE) {
+                return;
+            }
+            for (Long questionId : questionIds) {
+                int index = Arrays.binarySearch(session.questionIds, questionId);
+                if (index >= 0) {
+                    markDirty(sessionId, session, index);
+                }
+            }
+        }
+    }
+
+    public Set<Long> getDirtySessions() {
+        return Set.copyOf(dirtySessions);
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount.get();
+    }
+
+    // Visits (sessionId, deadline in epoch millis) of every active session
+    public void forEachActive(BiConsumer<Long, Long> visitor) {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.sessions.forEach((sessionId, session) -> {
+                    if (!session.isClosed()) {
+                        visitor.accept(sessionId, session.deadlineMillis);
+                    }
+                });
+            }
+        }
+    }
+
+    public int getActiveCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += (int) shard.sessions.values().stream().filter(session -> !session.isClosed()).count();
+            }
+        }
+        return count;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeTombstones() {
+        long cutoff = System.currentTimeMillis() - TOMBSTONE_TTL_MS;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.sessions.values().removeIf(session -> {
+                    if (!session.isClosed() || session.closedAtMillis >= cutoff) {
+                        return false;
+                    }
+                    free(session);
+                    return true;
+                });
+            }
+        }
+    }
+
+    // Sessions started on another node (or before a restart finished rebuilding) are loaded on first use
+    private ActiveSession getOrLoad(Long sessionId) {
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            ActiveSession session = shard.sessions.get(sessionId);
+            if (session != null) {
+                return session;
+            }
+        }
+
+        List<Object[]> rows = examSessionRepository.findActiveSessionRowById(sessionId);
+        if (rows.isEmpty()) {
+            synchronized (shard) {
+                return shard.sessions.computeIfAbsent(sessionId, id -> ActiveSession.tombstone());
+            }
+        }
+        ActiveSession loaded = toActiveSession(rows.get(0));
+        List<Object[]> answers = studentAnswerRepository.findSelectedAnswersBySessionId(sessionId);
+        synchronized (shard) {
+            ActiveSession existing = shard.sessions.get(sessionId);
+            if (existing != null) {
+                return existing;
+            }
+            insert(shard, sessionId, loaded);
+            for (Object[] answer : answers) {
+                loadAnswer(loaded, (Long) answer[0], (String) answer[1]);
+            }
+            return loaded;
+        }
+    }
+
+    private void put(Long sessionId, ActiveSession session) {
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            ActiveSession existing = shard.sessions.get(sessionId);
+            // A live entry keeps its answers; only a missing or closed entry is replaced
+            if (existing == null || existing.isClosed()) {
+                if (existing != null) {
+                    free(existing);
+                }
+                insert(shard, sessionId, session);
+            }
+        }
+    }
+
+    // Caller holds the shard lock
+    private void insert(Shard shard, Long sessionId, ActiveSession session) {
+        session.answerHandle = answerArena.allocate(session.questionIds.length);
+        shard.sessions.put(sessionId, session);
+    }
+
+    // Frees the answer vector of a closed entry once its close has committed
+    private void release(Long sessionId, ActiveSession session) {
+        synchronized (shardFor(sessionId)) {
+            free(session);
+        }
+    }
+
+    // Undoes a close whose transaction rolled back. An entry that was purged or replaced meanwhile is
+    // dropped, so the next access loads the session again.
+    private void reopen(Long sessionId, ActiveSession session) {
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            if (shard.sessions.get(sessionId) != session) {
+                return;
+            }
+            if (session.answerHandle != SessionAnswerArena.NO_HANDLE) {
+                session.closedAtMillis = 0;
+            } else {
+                shard.sessions.remove(sessionId);
+            }
+        }
+    }
+
+    private Map<Long, String> dirtyAnswers(Long sessionId, boolean clear) {
+        Map<Long, String> answers = new HashMap<>();
+        Shard shard = shardFor(sessionId);
+        synchronized (shard) {
+            ActiveSession session = shard.sessions.get(sessionId);
+            if (session == null || session.dirtyCount == 0) {
+                dirtySessions.remove(sessionId);
+                return answers;
+            }
+            for (int i = 0; i < session.questionIds.length && answers.size() < session.dirtyCount; i++) {
+                if (answerArena.isDirty(session.answerHandle, i)) {
+                    int value = answerArena.get(session.answerHandle, i);
+                    answers.put(session.questionIds[i], SessionAnswerArena.decode(value));
+                    if (clear) {
+                        answerArena.set(session.answerHandle, i, value, false);
+                    }
+                }
+            }
+            if (clear) {
+                dirtyCount.addAndGet(-session.dirtyCount);
+                session.dirtyCount = 0;
+                dirtySessions.remove(sessionId);
+            }
+        }
+        return answers;
+    }
+
+    // Caller holds the shard lock
+    private void markDirty(Long sessionId, ActiveSession session, int index) {
+        if (!answerArena.isDirty(session.answerHandle, index)) {
+            answerArena.set(session.answerHandle, index, answerArena.get(session.answerHandle, index), true);
+            session.dirtyCount++;
+            dirtyCount.incrementAndGet();
+        }
+        dirtySessions.add(sessionId);
+    }
+
+    // Caller holds the shard lock. A close only commits after its flush, so whatever is still dirty here
+    // belongs to a session that is no longer IN_PROGRESS and would not be written anyway.
+    private void free(ActiveSession session) {
+        dirtyCount.addAndGet(-session.dirtyCount);
+        session.dirtyCount = 0;
+        if (session.answerHandle != SessionAnswerArena.NO_HANDLE) {
+            answerArena.free(session.answerHandle);
+            session.answerHandle = SessionAnswerArena.NO_HANDLE;
+        }
+        session.clientSeqs = null;
+    }
+
+    // Caller holds the shard lock; an answer read from student_answers is clean. Answers to questions outside
+    // the session are ignored.
+    private void loadAnswer(ActiveSession session, Long questionId, String selectedAnswer) {
+        int index = Arrays.binarySearch(session.questionIds, questionId);
+        if (index >= 0) {
+            setAnswer(session, index, SessionAnswerArena.encode(selectedAnswer));
+        }
+    }
+
+    // Caller holds the shard lock; keeps the entry's dirty bit
+    private void setAnswer(ActiveSession session, int index, int value) {
+        int previous = answerArena.get(session.answerHandle, index);
+        answerArena.set(session.answerHandle, index, value, answerArena.isDirty(session.answerHandle, index));
+        session.answeredCount += (value != 0 ? 1 : 0) - (previous != 0 ? 1 : 0);
+    }
+
+    // Row layout of findActiveSessionRows: id, examId, studentId, startTime, durationMinutes, questionIds
+    private ActiveSession toActiveSession(Object[] row) {
+        LocalDateTime deadline = ((LocalDateTime) row[3]).plusMinutes((Integer) row[4]);
+        Long examId = (Long) row[1];
+        return new ActiveSession(examId, (Long) row[2], toMillis(deadline),
+                questionIdsOf(examId, QuestionPoolIndex.decode((String) row[5])));
+    }
+
+    private long[] questionIdsOf(Long examId, long[] drawn) {
+        return drawn != null ? drawn : gradingKeyCache.get(examId).getQuestionIds();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private Shard shardFor(Long sessionId) {
+        return shards[(int) Math.floorMod(sessionId, (long) SHARDS)];
+    }
+}
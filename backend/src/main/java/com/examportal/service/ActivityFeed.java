@@ -0,0 +1,166 @@
+package com.examportal.service;
+
+import com.examportal.entity.Exam;
+import com.examportal.entity.Student;
+import com.examportal.repository.ExamRepository;
+import com.examportal.repository.ExamSessionRepository;
+import com.examportal.repository.StudentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Recent completions, exam creations and student registrations, kept in lock-free rings so the admin
+// dashboard feed and /results/recent never touch exam_sessions. Seeded at startup from indexed top-N
+// queries and fed by events afterwards. Reseeded after a regrade or an exam change so marks and titles
+// stay current and deleted exams drop out: a reseed builds fresh rings and swaps them in. Within a ring
+// the copy added last shadows older copies of the same entry.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityFeed {
+
+    public record Completion(long sessionId, String studentName, String examTitle, int obtainedMarks,
+                             int totalMarks, int passingMarks, LocalDateTime completedAt) {
+    }
+
+    public record Activity(String id, String action, String user, LocalDateTime occurredAt) {
+    }
+
+    private static final Comparator<LocalDateTime> NEWEST_FIRST = Comparator.nullsLast(Comparator.reverseOrder());
+
+    private final ExamSessionRepository examSessionRepository;
+    private final ExamRepository examRepository;
+    private final StudentRepository studentRepository;
+
+    @Value("${exam.activity-feed.capacity:256}")
+    private int capacity;
+
+    private volatile ActivityRing<Completion> completions;
+    // Exam creations and registrations
+    private volatile ActivityRing<Activity> activities;
+
+    @PostConstruct
+    void createRings() {
+        completions = new ActivityRing<>(capacity);
+        activities = new ActivityRing<>(capacity);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void seed() {
+        ActivityRing<Completion> previousCompletions = completions;
+        ActivityRing<Activity> previousActivities = activities;
+        long completionsMark = previousCompletions.position();
+        long activitiesMark = previousActivities.position();
+
+        ActivityRing<Completion> seededCompletions = new ActivityRing<>(capacity);
+        ActivityRing<Activity> seededActivities = new ActivityRing<>(capacity);
+        try {
+            List<Object[]> recentCompletions = examSessionRepository.findRecentCompletions(PageRequest.of(0, capacity));
+            for (int i = recentCompletions.size() - 1; i >= 0; i--) {
+                Object[] row = recentCompletions.get(i);
+                seededCompletions.add(new Completion((Long) row[0], (String) row[1], (String) row[2],
+                        ((Number) row[3]).intValue(), (Integer) row[4], (Integer) row[5], (LocalDateTime) row[6]));
+            }
+
+            List<Activity> seeded = new ArrayList<>();
+            for (Object[] row : examRepository.findRecentlyCreated(PageRequest.of(0, capacity))) {
+                seeded.add(examCreated((Long) row[0], (String) row[1], (LocalDateTime) row[2]));
+            }
+            for (Object[] row : studentRepository.findRecentlyRegistered(PageRequest.of(0, capacity))) {
+                seeded.add(studentRegistered((Long) row[0], (String) row[1], (LocalDateTime) row[2]));
+            }
+            // Oldest first, so the newest end up as the most recently added
+            seeded.sort(Comparator.comparing(Activity::occurredAt, NEWEST_FIRST).reversed());
+            seeded.stream().skip(Math.max(0, seeded.size() - capacity)).forEach(seededActivities::add);
+        } catch (RuntimeException e) {
+            log.error("Failed to seed the activity feed: {}", e.getMessage());
+            return;
+        }
+
+        completions = seededCompletions;
+        activities = seededActivities;
+        // Events that reached the old rings while the queries ran may be missing from their results
+        previousCompletions.since(completionsMark).forEach(seededCompletions::add);
+        previousActivities.since(activitiesMark).forEach(seededActivities::add);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        String studentName = studentRepository.findById(event.studentId()).map(Student::getFullName).orElse(null);
+        Exam exam = examRepository.findById(event.examId()).orElse(null);
+        if (exam == null) {
+            return;
+        }
+        completions.add(new Completion(event.sessionId(), studentName, exam.getTitle(),
+                event.obtainedMarks() != null ? event.obtainedMarks() : 0, exam.getTotalMarks(), exam.getPassingMarks(),
+                event.endTime()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamCreated(ExamCreatedEvent event) {
+        activities.add(examCreated(event.examId(), event.title(), event.createdAt()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentRegistered(StudentRegisteredEvent event) {
+        activities.add(studentRegistered(event.studentId(), event.fullName(), event.createdAt()));
+    }
+
+    // Titles or marks shown in the feed may have changed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamChanged(ExamChangedEvent event) {
+        seed();
+    }
+
+    // Latest completions, newest first
+    public List<Completion> getRecentCompletions(int limit) {
+        Set<Long> seen = new HashSet<>();
+        List<Completion> recent = new ArrayList<>();
+        for (Completion completion : completions.latest(capacity)) {
+            if (seen.add(completion.sessionId())) {
+                recent.add(completion);
+            }
+        }
+        recent.sort(Comparator.comparing(Completion::completedAt, NEWEST_FIRST)
+                .thenComparing(Comparator.comparingLong(Completion::sessionId).reversed()));
+        return recent.subList(0, Math.min(limit, recent.size()));
+    }
+
+    // Latest activity of every kind, newest first
+    public List<Activity> getRecentActivity(int limit) {
+        List<Activity> merged = new ArrayList<>();
+        for (Completion completion : getRecentCompletions(limit)) {
+            merged.add(new Activity("session_" + completion.sessionId(), "completed exam: " + completion.examTitle(),
+                    completion.studentName(), completion.completedAt()));
+        }
+        Set<String> seen = new HashSet<>();
+        for (Activity activity : activities.latest(capacity)) {
+            if (seen.add(activity.id())) {
+                merged.add(activity);
+            }
+        }
+        merged.sort(Comparator.comparing(Activity::occurredAt, NEWEST_FIRST));
+        return merged.subList(0, Math.min(limit, merged.size()));
+    }
+
+    private static Activity examCreated(Long examId, String title, LocalDateTime createdAt) {
+        return new Activity("exam_" + examId, "created exam: " + title, "Admin", createdAt);
+    }
+
+    private static Activity studentRegistered(Long studentId, String fullName, LocalDateTime createdAt) {
+        return new Activity("student_" + studentId, "registered as new student", fullName, createdAt);
+    }
+}
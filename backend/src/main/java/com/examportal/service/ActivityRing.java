@@ -0,0 +1,59 @@
+package com.examportal.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded, lock-free ring of the most recent entries. A writer claims a sequence number and stores
+// into its slot; the slot keeps the sequence so readers skip slots that a lagging writer has not
+// filled yet or that were overwritten while they read. Once full, each add replaces the oldest entry.
+public final class ActivityRing<E> {
+
+    private record Slot<E>(long sequence, E value) {
+    }
+
+    private final AtomicReferenceArray<Slot<E>> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    public ActivityRing(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(E value) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence % slots.length()), new Slot<>(sequence, value));
+    }
+
+    // Sequence number the next add will get
+    public long position() {
+        return next.get();
+    }
+
+    // Entries added at or after position that are still held, oldest first
+    public List<E> since(long position) {
+        long end = next.get();
+        List<E> values = new ArrayList<>();
+        for (long sequence = Math.max(position, end - slots.length()); sequence < end; sequence++) {
+            Slot<E> slot = slots.get((int) (sequence % slots.length()));
+            if (slot != null && slot.sequence() == sequence) {
+                values.add(slot.value());
+            }
+        }
+        return values;
+    }
+
+    // Up to limit entries, most recently added first
+    public List<E> latest(int limit) {
+        long end = next.get();
+        long start = Math.max(0, end - slots.length());
+        List<E> values = new ArrayList<>(Math.min(limit, slots.length()));
+        for (long sequence = end - 1; sequence >= start && values.size() < limit; sequence--) {
+            Slot<E> slot = slots.get((int) (sequence % slots.length()));
+            if (slot != null && slot.sequence() == sequence) {
+                values.add(slot.value());
+            }
+        }
+        return values;
+    }
+}
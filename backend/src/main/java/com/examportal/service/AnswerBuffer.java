@@ -0,0 +1,254 @@
+package com.examportal.service;
+
+import com.examportal.repository.StudentAnswerJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Write-behind for answers. The buffered answers are the dirty entries of ActiveSessionRegistry's answer
+// vectors, so each (session, question) holds only its latest answer and nothing is copied on the heap
+// until a flush drains it. Every answer is journaled before it is acknowledged; the timed flush is also
+// the journal's applier.
+@Component
+@Slf4j
+public class AnswerBuffer implements SmartInitializingSingleton {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final StudentAnswerJdbcRepository studentAnswerJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final AnswerJournal answerJournal;
+    private final ActiveSessionRegistry activeSessionRegistry;
+
+    @Value("${exam.answer-buffer.max-pending:5000}")
+    private int maxPending;
+
+    private final Object[] flushLocks = createLocks();
+    private final ExecutorService overflowFlusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "answer-buffer-overflow");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean overflowFlushQueued = new AtomicBoolean();
+    // Flushes that have drained answers whose write has not committed yet (it may still roll back), and
+    // sessions whose drained answers were marked dirty again since the last checkpoint. A checkpoint
+    // holds the write lock while it checks these; a flush holds the read lock while it drains.
+    private final AtomicInteger uncommittedFlushes = new AtomicInteger();
+    private final Set<Long> requeued = ConcurrentHashMap.newKeySet();
+    private final ReentrantReadWriteLock drainLock = new ReentrantReadWriteLock();
+
+    public AnswerBuffer(StudentAnswerJdbcRepository studentAnswerJdbcRepository,
+                        TransactionTemplate transactionTemplate,
+                        PlatformTransactionManager transactionManager,
+                        AnswerJournal answerJournal,
+                        ActiveSessionRegistry activeSessionRegistry) {
+        this.studentAnswerJdbcRepository = studentAnswerJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.answerJournal = answerJournal;
+        this.activeSessionRegistry = activeSessionRegistry;
+    }
+
+    // Replays journaled answers that never reached the database, before the web server accepts requests and
+    // before the registry is rebuilt from student_answers. They are written straight to the table; if that
+    // fails, startup fails with the journal left as it was.
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<AnswerJournal.Entry> entries = answerJournal.unappliedEntries();
+        if (entries.isEmpty()) {
+            return;
+        }
+        log.info("Replaying {} journaled answers into student_answers", entries.size());
+        Map<Long, Map<Long, String>> latest = new LinkedHashMap<>();
+        for (AnswerJournal.Entry entry : entries) {
+            latest.computeIfAbsent(entry.sessionId(), id -> new HashMap<>()).put(entry.questionId(), entry.selectedAnswer());
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                latest.forEach(studentAnswerJdbcRepository::saveAnswers));
+        answerJournal.markApplied(answerJournal.position());
+    }
+
+    // Journals an answer the registry has already recorded (and marked dirty). Recording comes first, so
+    // every entry before a checkpoint position is dirty, or already written, when the checkpoint flushes.
+    public void append(Long sessionId, Long questionId, String selectedAnswer) {
+        // Journal is full: drain it before accepting more
+        while (!answerJournal.append(sessionId, questionId, selectedAnswer)) {
+            if (!checkpoint()) {
+                throw new RuntimeException("Answer journal is full, please retry");
+            }
+        }
+
+        // Buffer is full: drain it in the background rather than on the student's request thread
+        if (activeSessionRegistry.getDirtyCount() >= maxPending && overflowFlushQueued.compareAndSet(false, true)) {
+            overflowFlusher.execute(() -> {
+                try {
+                    checkpoint();
+                } finally {
+                    overflowFlushQueued.set(false);
+                }
+            });
+        }
+    }
+
+    public void appendAll(Long sessionId, Map<Long, String> answers) {
+        answers.forEach((questionId, selectedAnswer) -> append(sessionId, questionId, selectedAnswer));
+    }
+
+    // Writes everything buffered for one session; callers that read answers back (grading) must call this first.
+    // Joins the caller's transaction if there is one, and marks the batch dirty again if that transaction rolls back.
+    public void flush(Long sessionId) {
+        flush(sessionId, transactionTemplate);
+    }
+
+    public boolean flushAll() {
+        return flushEach(transactionTemplate).isEmpty();
+    }
+
+    private void flush(Long sessionId, TransactionTemplate template) {
+        synchronized (lockFor(sessionId)) {
+            Map<Long, String> answers;
+            drainLock.readLock().lock();
+            try {
+                answers = activeSessionRegistry.drainDirty(sessionId);
+                if (answers.isEmpty()) {
+                    return;
+                }
+                uncommittedFlushes.incrementAndGet();
+            } finally {
+                drainLock.readLock().unlock();
+            }
+
+            // Commits with the caller's transaction rather than on its own
+            boolean joined = template == transactionTemplate && TransactionSynchronizationManager.isSynchronizationActive();
+            try {
+                template.executeWithoutResult(status -> studentAnswerJdbcRepository.saveAnswers(sessionId, answers));
+            } catch (RuntimeException e) {
+                requeue(sessionId, answers);
+                uncommittedFlushes.decrementAndGet();
+                throw e;
+            }
+            if (!joined) {
+                uncommittedFlushes.decrementAndGet();
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        requeue(sessionId, answers);
+                    }
+                    uncommittedFlushes.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    // Returns the sessions whose flush failed; their answers stay buffered
+    private List<Long> flushEach(TransactionTemplate template) {
+        List<Long> failed = new ArrayList<>();
+        for (Long sessionId : activeSessionRegistry.getDirtySessions()) {
+            try {
+                flush(sessionId, template);
+            } catch (RuntimeException e) {
+                failed.add(sessionId);
+                log.error("Failed to flush buffered answers for session {}: {}", sessionId, e.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    @Scheduled(fixedDelayString = "${exam.answer-buffer.flush-interval-ms:1000}")
+    public void scheduledCheckpoint() {
+        checkpoint();
+    }
+
+    // Flushes the whole buffer, each session in its own transaction, and marks the journal applied up to
+    // the point where the flush started. Answers drained by a flush that has not committed may be journaled
+    // before that point, so the journal does not advance while any such flush is open. Sessions whose write
+    // failed or rolled back are journaled again past that point, so one failing session cannot hold the
+    // journal back (and fill it). Returns false when the journal could not be advanced.
+    public synchronized boolean checkpoint() {
+        long position = answerJournal.position();
+        flushEach(newTransaction);
+        // No flush can drain while this is held, so the dirty answers read below are complete
+        drainLock.writeLock().lock();
+        try {
+            if (uncommittedFlushes.get() > 0) {
+                return false;
+            }
+            for (Long sessionId : new ArrayList<>(requeued)) {
+                if (!journalAgain(sessionId)) {
+                    return false;
+                }
+                requeued.remove(sessionId);
+            }
+            answerJournal.markApplied(position);
+            return true;
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return activeSessionRegistry.getDirtyCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        overflowFlusher.shutdown();
+        if (!checkpoint() || getPendingCount() > 0) {
+            log.error("{} buffered answers could not be written on shutdown and remain in the journal", getPendingCount());
+        }
+    }
+
+    // Puts a batch whose write failed or rolled back back into the arena; the next checkpoint journals it again
+    private void requeue(Long sessionId, Map<Long, String> answers) {
+        activeSessionRegistry.markDirty(sessionId, answers.keySet());
+        requeued.add(sessionId);
+    }
+
+    // Appends the session's dirty answers to the journal again; false when the journal is full
+    private boolean journalAgain(Long sessionId) {
+        for (Map.Entry<Long, String> answer : activeSessionRegistry.getDirty(sessionId).entrySet()) {
+            if (!answerJournal.append(sessionId, answer.getKey(), answer.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object lockFor(Long sessionId) {
+        return flushLocks[(int) (sessionId % LOCK_STRIPES + LOCK_STRIPES) % LOCK_STRIPES];
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,203 @@
+package com.examportal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only, memory-mapped log of accepted answers. Entries past the applied offset have not
+// reached student_answers yet and are replayed on startup.
+//
+// Header (64 bytes): magic, version, epoch, applied offset.
+// Record (32 bytes): session id, question id, epoch, answer (0 = cleared), padding, CRC32 of bytes 0-27.
+// The epoch is bumped whenever the journal is rewound, so records left over from an older pass never validate.
+@Component
+@Slf4j
+public class AnswerJournal {
+
+    private static final int MAGIC = 0x414A524E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int HEADER_EPOCH = 8;
+    private static final int HEADER_APPLIED = 16;
+    private static final int RECORD_EPOCH = 16;
+    private static final int RECORD_ANSWER = 20;
+    private static final int RECORD_CRC = 28;
+
+    @Value("${exam.answer-journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${exam.answer-journal.path:data/answer-journal.dat}")
+    private String path;
+
+    @Value("${exam.answer-journal.capacity:1048576}")
+    private int capacity;
+
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int epoch;
+    private long writeOffset;
+    private long appliedOffset;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    public record Entry(Long sessionId, Long questionId, String selectedAnswer) {
+    }
+
+    @PostConstruct
+    public synchronized void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path file = Paths.get(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open answer journal " + path, e);
+        }
+
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            epoch = 1;
+            appliedOffset = HEADER_SIZE;
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, VERSION);
+            writeHeader();
+        } else {
+            epoch = mapped.getInt(HEADER_EPOCH);
+            appliedOffset = mapped.getLong(HEADER_APPLIED);
+        }
+
+        // The write position is not stored; it is the end of the valid records after the applied offset
+        writeOffset = appliedOffset;
+        while (writeOffset + RECORD_SIZE <= mapped.capacity() && isValid(writeOffset)) {
+            writeOffset += RECORD_SIZE;
+        }
+        log.info("Answer journal {} opened with {} unapplied entries", path, (writeOffset - appliedOffset) / RECORD_SIZE);
+    }
+
+    // Returns false when the journal is full and has to be checkpointed before it can take more
+    public synchronized boolean append(Long sessionId, Long questionId, String selectedAnswer) {
+        if (!enabled) {
+            return true;
+        }
+        if (writeOffset + RECORD_SIZE > mapped.capacity()) {
+            return false;
+        }
+
+        writeRecord(writeOffset, sessionId, questionId, selectedAnswer != null ? (byte) selectedAnswer.charAt(0) : 0, epoch);
+        writeOffset += RECORD_SIZE;
+        return true;
+    }
+
+    public synchronized long position() {
+        return writeOffset;
+    }
+
+    // Everything before the position has been written to the database. Rewinds once fully drained; otherwise a
+    // tail that fits in the drained space is moved to the front, so entries that keep being journaled again
+    // (AnswerBuffer's failing sessions) cannot walk the journal to its end.
+    public synchronized void markApplied(long position) {
+        if (!enabled || position <= appliedOffset) {
+            return;
+        }
+        appliedOffset = Math.min(position, writeOffset);
+        long target = HEADER_SIZE;
+        long tail = writeOffset - appliedOffset;
+        if (tail > 0) {
+            writeHeader();
+            mapped.force();
+            if (tail > appliedOffset - HEADER_SIZE) {
+                return;
+            }
+            // The copies carry the next epoch and land below the tail, so until the header switches over
+            // a restart still reads the original tail
+            for (long offset = appliedOffset; offset < writeOffset; offset += RECORD_SIZE, target += RECORD_SIZE) {
+                int base = (int) offset;
+                writeRecord(target, mapped.getLong(base), mapped.getLong(base + 8), mapped.get(base + RECORD_ANSWER),
+                        epoch + 1);
+            }
+            mapped.force();
+        }
+        epoch++;
+        appliedOffset = HEADER_SIZE;
+        writeOffset = target;
+        writeHeader();
+        mapped.force();
+    }
+
+    public synchronized List<Entry> unappliedEntries() {
+        List<Entry> entries = new ArrayList<>();
+        if (!enabled) {
+            return entries;
+        }
+        for (long offset = appliedOffset; offset < writeOffset; offset += RECORD_SIZE) {
+            int base = (int) offset;
+            byte answer = mapped.get(base + RECORD_ANSWER);
+            entries.add(new Entry(mapped.getLong(base), mapped.getLong(base + 8),
+                    answer != 0 ? String.valueOf((char) answer) : null));
+        }
+        return entries;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            mapped.force();
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close answer journal: {}", e.getMessage());
+        }
+    }
+
+    private boolean isValid(long offset) {
+        int base = (int) offset;
+        if (mapped.getLong(base) == 0 || mapped.getInt(base + RECORD_EPOCH) != epoch) {
+            return false;
+        }
+        byte[] bytes = new byte[RECORD_CRC];
+        mapped.get(base, bytes);
+        crc.reset();
+        crc.update(bytes);
+        return (int) crc.getValue() == mapped.getInt(base + RECORD_CRC);
+    }
+
+    private void writeRecord(long offset, long sessionId, long questionId, byte answer, int recordEpoch) {
+        record.clear();
+        record.putLong(sessionId);
+        record.putLong(questionId);
+        record.putInt(recordEpoch);
+        record.put(answer);
+        record.put(new byte[RECORD_CRC - RECORD_ANSWER - 1]);
+        crc.reset();
+        crc.update(record.array(), 0, RECORD_CRC);
+        record.putInt((int) crc.getValue());
+        mapped.put((int) offset, record.array());
+    }
+
+    private void writeHeader() {
+        mapped.putInt(HEADER_EPOCH, epoch);
+        mapped.putLong(HEADER_APPLIED, appliedOffset);
+    }
+}
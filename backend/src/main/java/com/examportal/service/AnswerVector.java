@@ -0,0 +1,166 @@
+package com.examportal.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+// Compact answer sheet of a finished session, stored on exam_sessions as two Base64 columns.
+//
+// answer_vector: version byte, varint question count, the sorted question ids as varint deltas,
+// then one 3-bit answer per question (0 = unanswered, 1-4 = A-D).
+// correctness_bitmap: one bit per question in the same order, set when the answer was correct.
+public final class AnswerVector {
+
+    private static final int VERSION = 1;
+    private static final int BITS_PER_ANSWER = 3;
+
+    private final long[] questionIds;
+    private final byte[] answers;
+    private final byte[] correct;
+
+    private AnswerVector(long[] questionIds, byte[] answers, byte[] correct) {
+        this.questionIds = questionIds;
+        this.answers = answers;
+        this.correct = correct;
+    }
+
+    // Question ids must be sorted; answers to questions outside them are dropped
+    public static AnswerVector fromAnswers(long[] questionIds, Map<Long, String> selectedAnswers, LongPredicate isCorrect) {
+        int count = questionIds.length;
+        byte[] answers = new byte[(count * BITS_PER_ANSWER + 7) / 8];
+        byte[] correct = new byte[(count + 7) / 8];
+        for (int i = 0; i < count; i++) {
+            String answer = selectedAnswers.get(questionIds[i]);
+            int value = SessionAnswerArena.encode(answer);
+            if (value == 0) {
+                continue;
+            }
+            putAnswer(answers, i, value);
+            if (isCorrect.test(questionIds[i])) {
+                correct[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return new AnswerVector(questionIds, answers, correct);
+    }
+
+    // Null when the session has no stored vector yet
+    public static AnswerVector decode(String answerVector, String correctnessBitmap) {
+        if (answerVector == null || answerVector.isEmpty()) {
+            return null;
+        }
+        byte[] bytes = Base64.getDecoder().decode(answerVector);
+        if (bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported answer vector version " + bytes[0]);
+        }
+        int[] position = {1};
+        int count = (int) readVarint(bytes, position);
+        long[] questionIds = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarint(bytes, position);
+            questionIds[i] = previous;
+        }
+        byte[] answers = new byte[(count * BITS_PER_ANSWER + 7) / 8];
+        System.arraycopy(bytes, position[0], answers, 0, answers.length);
+
+        byte[] correct = new byte[(count + 7) / 8];
+        if (correctnessBitmap != null && !correctnessBitmap.isEmpty()) {
+            byte[] bitmap = Base64.getDecoder().decode(correctnessBitmap);
+            System.arraycopy(bitmap, 0, correct, 0, Math.min(bitmap.length, correct.length));
+        }
+        return new AnswerVector(questionIds, answers, correct);
+    }
+
+    public String encodeAnswers() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(answers.length + questionIds.length * 2 + 4);
+        out.write(VERSION);
+        writeVarint(out, questionIds.length);
+        long previous = 0;
+        for (long questionId : questionIds) {
+            writeVarint(out, questionId - previous);
+            previous = questionId;
+        }
+        out.writeBytes(answers);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    public String encodeCorrectness() {
+        return Base64.getEncoder().encodeToString(correct);
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public long questionId(int index) {
+        return questionIds[index];
+    }
+
+    public int indexOf(long questionId) {
+        return Arrays.binarySearch(questionIds, questionId);
+    }
+
+    // 0 when unanswered, otherwise 1-4 for A-D
+    public int answerValue(int index) {
+        int bit = index * BITS_PER_ANSWER;
+        int position = bit >>> 3;
+        int shift = bit & 7;
+        int word = answers[position] & 0xFF;
+        if (shift + BITS_PER_ANSWER > 8) {
+            word |= (answers[position + 1] & 0xFF) << 8;
+        }
+        return (word >>> shift) & 0b111;
+    }
+
+    public String selectedAnswer(int index) {
+        return SessionAnswerArena.decode(answerValue(index));
+    }
+
+    public boolean isCorrect(int index) {
+        return (correct[index >>> 3] & (1 << (index & 7))) != 0;
+    }
+
+    public int answeredCount() {
+        int answered = 0;
+        for (int i = 0; i < questionIds.length; i++) {
+            if (answerValue(i) != 0) {
+                answered++;
+            }
+        }
+        return answered;
+    }
+
+    private static void putAnswer(byte[] answers, int index, int value) {
+        int bit = index * BITS_PER_ANSWER;
+        int position = bit >>> 3;
+        int shift = bit & 7;
+        int word = value << shift;
+        answers[position] |= (byte) word;
+        if (shift + BITS_PER_ANSWER > 8) {
+            answers[position + 1] |= (byte) (word >>> 8);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
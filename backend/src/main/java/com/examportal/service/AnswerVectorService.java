@@ -0,0 +1,237 @@
+package com.examportal.service;
+
+import com.examportal.entity.ExamSession;
+import com.examportal.entity.Question;
+import com.examportal.repository.ExamSessionJdbcRepository;
+import com.examportal.repository.QuestionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds the packed answer vectors of completed sessions from student_answers (for sessions graded
+// before the columns existed, and after a regrade) and serves item analysis straight from them.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnswerVectorService {
+
+    private static final String[] OPTIONS = {"A", "B", "C", "D"};
+
+    private final ExamSessionJdbcRepository examSessionJdbcRepository;
+    private final QuestionRepository questionRepository;
+    private final GradingKeyCache gradingKeyCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${exam.answer-vector.backfill-enabled:true}")
+    private boolean backfillEnabled;
+
+    @Value("${exam.answer-vector.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    private volatile Thread backfillThread;
+
+    // Backfills in the background so startup is not held up by a large exam_sessions table
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startBackfill() {
+        if (!backfillEnabled || backfillThread != null) {
+            return;
+        }
+        backfillThread = new Thread(this::backfill, "answer-vector-backfill");
+        backfillThread.setDaemon(true);
+        backfillThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stopBackfill() {
+        if (backfillThread != null) {
+            backfillThread.interrupt();
+        }
+    }
+
+    private void backfill() {
+        long afterId = 0;
+        int total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> sessionIds = examSessionJdbcRepository.findCompletedWithoutAnswerVector(afterId, backfillBatchSize);
+            if (sessionIds.isEmpty()) {
+                break;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebuild(sessionIds));
+                total += sessionIds.size();
+            } catch (RuntimeException e) {
+                log.error("Answer vector backfill failed for sessions {}-{}: {}", sessionIds.get(0),
+                        sessionIds.get(sessionIds.size() - 1), e.getMessage());
+            }
+            afterId = sessionIds.get(sessionIds.size() - 1);
+        }
+        if (total > 0) {
+            log.info("Backfilled answer vectors of {} completed sessions", total);
+        }
+    }
+
+    // Re-scores the exam's completed sessions in an id range against key the way GradingService does (only
+    // the session's draw counts, capped at the key's total) and rewrites their vectors from the same read.
+    // Runs inside the caller's transaction.
+    public int regradeRange(Long examId, GradingKey key, long fromSessionId, long toSessionId) {
+        List<Long> sessionIds = examSessionJdbcRepository.findCompletedSessionIds(examId, fromSessionId, toSessionId);
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Map<Long, String>> answers = new HashMap<>();
+        for (Object[] row : examSessionJdbcRepository.findAnswerRows(sessionIds)) {
+            answers.computeIfAbsent((Long) row[0], id -> new HashMap<>()).put((Long) row[1], (String) row[2]);
+        }
+
+        List<Object[]> updates = new ArrayList<>(sessionIds.size());
+        for (Object[] paper : examSessionJdbcRepository.findSessionPapers(sessionIds)) {
+            Long sessionId = (Long) paper[0];
+            long[] questionIds = QuestionPoolIndex.decode((String) paper[2]);
+            if (questionIds == null) {
+                questionIds = key.getQuestionIds();
+            }
+            Map<Long, String> selected = answers.getOrDefault(sessionId, Map.of());
+            List<Object[]> counted = new ArrayList<>(selected.size());
+            for (long questionId : questionIds) {
+                String selectedAnswer = selected.get(questionId);
+                if (selectedAnswer != null) {
+                    counted.add(new Object[]{questionId, selectedAnswer});
+                }
+            }
+            AnswerVector vector = AnswerVector.fromAnswers(questionIds, selected,
+                    questionId -> key.isCorrect(questionId, selected.get(questionId)));
+            updates.add(new Object[]{key.score(counted), vector.encodeAnswers(), vector.encodeCorrectness(), sessionId});
+        }
+        examSessionJdbcRepository.saveGrades(updates);
+        return updates.size();
+    }
+
+    // Correctness is taken from student_answers.is_correct, which grading and regrading keep current
+    private void rebuild(List<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<Long, String>> answers = new HashMap<>();
+        Map<Long, Map<Long, Boolean>> correct = new HashMap<>();
+        for (Object[] row : examSessionJdbcRepository.findAnswerRows(sessionIds)) {
+            Long sessionId = (Long) row[0];
+            answers.computeIfAbsent(sessionId, id -> new HashMap<>()).put((Long) row[1], (String) row[2]);
+            correct.computeIfAbsent(sessionId, id -> new HashMap<>()).put((Long) row[1], (Boolean) row[3]);
+        }
+
+        List<Object[]> updates = new ArrayList<>(sessionIds.size());
+        for (Object[] paper : examSessionJdbcRepository.findSessionPapers(sessionIds)) {
+            Long sessionId = (Long) paper[0];
+            long[] questionIds = QuestionPoolIndex.decode((String) paper[2]);
+            if (questionIds == null) {
+                questionIds = gradingKeyCache.get((Long) paper[1]).getQuestionIds();
+            }
+            Map<Long, Boolean> sessionCorrect = correct.getOrDefault(sessionId, Map.of());
+            AnswerVector vector = AnswerVector.fromAnswers(questionIds, answers.getOrDefault(sessionId, Map.of()),
+                    questionId -> Boolean.TRUE.equals(sessionCorrect.get(questionId)));
+            updates.add(new Object[]{vector.encodeAnswers(), vector.encodeCorrectness(), sessionId});
+        }
+        examSessionJdbcRepository.saveAnswerVectors(updates);
+    }
+
+    // The session's stored vector, or one built from its answer rows when it has not been backfilled yet
+    public AnswerVector vectorOf(ExamSession session) {
+        AnswerVector vector = AnswerVector.decode(session.getAnswerVector(), session.getCorrectnessBitmap());
+        if (vector != null) {
+            return vector;
+        }
+        Map<Long, String> answers = new HashMap<>();
+        Map<Long, Boolean> correct = new HashMap<>();
+        for (Object[] row : examSessionJdbcRepository.findAnswerRows(List.of(session.getId()))) {
+            answers.put((Long) row[1], (String) row[2]);
+            correct.put((Long) row[1], (Boolean) row[3]);
+        }
+        long[] questionIds = QuestionPoolIndex.decode(session.getQuestionIds());
+        if (questionIds == null) {
+            questionIds = gradingKeyCache.get(session.getExam().getId()).getQuestionIds();
+        }
+        return AnswerVector.fromAnswers(questionIds, answers, questionId -> Boolean.TRUE.equals(correct.get(questionId)));
+    }
+
+    // Per-question facility (share of candidates answering correctly), option distribution and
+    // point-biserial discrimination against the total score, over every completed session of the exam
+    public List<Map<String, Object>> getItemAnalysis(Long examId) {
+        Map<Long, ItemStats> stats = new HashMap<>();
+        examSessionJdbcRepository.forEachAnswerVector(examId, rs -> {
+            double score = rs.getInt(1);
+            AnswerVector vector = AnswerVector.decode(rs.getString(2), rs.getString(3));
+            for (int i = 0; i < vector.size(); i++) {
+                stats.computeIfAbsent(vector.questionId(i), id -> new ItemStats())
+                        .add(score, vector.answerValue(i), vector.isCorrect(i));
+            }
+        });
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Question question : questionRepository.findByExamIdOrderById(examId)) {
+            ItemStats item = stats.getOrDefault(question.getId(), new ItemStats());
+            Map<String, Object> analysis = new LinkedHashMap<>();
+            analysis.put("questionId", question.getId());
+            analysis.put("questionText", question.getQuestionText());
+            analysis.put("difficultyLevel", question.getDifficultyLevel());
+            analysis.put("correctAnswer", question.getCorrectAnswer());
+            analysis.put("presented", item.presented);
+            analysis.put("answered", item.presented - item.options[0]);
+            analysis.put("correct", item.correct);
+            analysis.put("facility", item.presented > 0 ? Math.round(1000.0 * item.correct / item.presented) / 1000.0 : null);
+            analysis.put("discrimination", item.discrimination());
+            Map<String, Integer> optionCounts = new LinkedHashMap<>();
+            for (int option = 0; option < OPTIONS.length; option++) {
+                optionCounts.put(OPTIONS[option], item.options[option + 1]);
+            }
+            analysis.put("optionCounts", optionCounts);
+            items.add(analysis);
+        }
+        return items;
+    }
+
+    private static final class ItemStats {
+        private int presented;
+        private int correct;
+        private final int[] options = new int[OPTIONS.length + 1];
+        private double scoreSum;
+        private double scoreSquareSum;
+        private double correctScoreSum;
+
+        void add(double score, int answer, boolean isCorrect) {
+            presented++;
+            options[answer]++;
+            scoreSum += score;
+            scoreSquareSum += score * score;
+            if (isCorrect) {
+                correct++;
+                correctScoreSum += score;
+            }
+        }
+
+        Double discrimination() {
+            if (correct == 0 || correct == presented) {
+                return null;
+            }
+            double mean = scoreSum / presented;
+            double deviation = Math.sqrt(Math.max(0, scoreSquareSum / presented - mean * mean));
+            if (deviation == 0) {
+                return null;
+            }
+            double p = (double) correct / presented;
+            double correctMean = correctScoreSum / correct;
+            double wrongMean = (scoreSum - correctScoreSum) / (presented - correct);
+            return Math.round(1000.0 * (correctMean - wrongMean) / deviation * Math.sqrt(p * (1 - p))) / 1000.0;
+        }
+    }
+}
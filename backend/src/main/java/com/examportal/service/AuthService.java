@@ -13,6 +13,7 @@ import com.examportal.repository.UserRepository;
 import com.examportal.security.JwtUtils;
 import com.examportal.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -32,6 +33,7 @@ public class AuthService {
     private final StudentRepository studentRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
+    private final ApplicationEventPublisher eventPublisher;
     
     public JwtResponse authenticateUser(LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
@@ -78,7 +80,8 @@ public class AuthService {
         student.setRole(User.Role.ROLE_STUDENT);
         student.setEnabled(true);
         
-        studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        eventPublisher.publishEvent(new StudentRegisteredEvent(saved.getId(), saved.getFullName(), saved.getCreatedAt()));
     }
     
     public void registerAdmin(Map<String, String> request) {
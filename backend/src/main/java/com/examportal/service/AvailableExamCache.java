@@ -0,0 +1,154 @@
+package com.examportal.service;
+
+import com.examportal.entity.Exam;
+import com.examportal.repository.ExamRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Active exams, plus for each recently seen student a bitmap over that list marking the exams they
+// have completed, so the student dashboard is answered from memory. A miss runs the anti-join query
+// once and derives the bitmap from it. The list (and with it every bitmap, whose bit positions are
+// list positions) is dropped whenever an exam changes; a student's bitmap is dropped when they
+// submit or get graded.
+@Component
+@RequiredArgsConstructor
+public class AvailableExamCache {
+
+    private final ExamRepository examRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${exam.available-exams.max-students:50000}")
+    private int maxStudents;
+
+    // Shared, read-only exams in id order and the position of each id in it. The exams are detached with
+    // their category loaded, so serializing them never reaches back into the loading request's session.
+    private record ActiveExams(List<Exam> exams, Map<Long, Integer> positions) {
+    }
+
+    private record CompletedBitmap(ActiveExams activeExams, long[] words) {
+        boolean isCompleted(int position) {
+            return (words[position >>> 6] & (1L << position)) != 0;
+        }
+    }
+
+    private volatile ActiveExams activeExams;
+    // Bumped when an exam changes so a list loaded before the change committed is never cached
+    private final AtomicLong examsGeneration = new AtomicLong();
+    private final LinkedHashMap<Long, CompletedBitmap> students = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CompletedBitmap> eldest) {
+            return size() > maxStudents;
+        }
+    };
+    // One token per student with a bitmap load in flight; invalidating the student drops it, so that
+    // load is not cached. Guarded by students, like the map itself.
+    private final Map<Long, Object> loading = new HashMap<>();
+
+    public List<Exam> getAvailableExams(Long studentId) {
+        ActiveExams active = getActiveExams(examsGeneration.get());
+        CompletedBitmap completed;
+        Object token = new Object();
+        synchronized (students) {
+            completed = students.get(studentId);
+            if (completed == null || completed.activeExams() != active) {
+                loading.put(studentId, token);
+            }
+        }
+        if (completed != null && completed.activeExams() == active) {
+            List<Exam> available = new ArrayList<>(active.exams().size());
+            for (int i = 0; i < active.exams().size(); i++) {
+                if (!completed.isCompleted(i)) {
+                    available.add(active.exams().get(i));
+                }
+            }
+            return available;
+        }
+
+        try {
+            List<Exam> available = examRepository.findAvailableForStudent(studentId);
+            // Every active exam missing from the anti-join result is one the student has completed
+            long[] words = new long[(active.exams().size() + 63) / 64];
+            for (int i = 0; i < active.exams().size(); i++) {
+                words[i >>> 6] |= 1L << i;
+            }
+            for (Exam exam : available) {
+                Integer position = active.positions().get(exam.getId());
+                if (position == null) {
+                    // Activated after the list was loaded; the next request will see the new list
+                    return available;
+                }
+                words[position >>> 6] &= ~(1L << position);
+            }
+            synchronized (students) {
+                if (loading.remove(studentId, token)) {
+                    students.put(studentId, new CompletedBitmap(active, words));
+                }
+            }
+            return available;
+        } finally {
+            synchronized (students) {
+                loading.remove(studentId, token);
+            }
+        }
+    }
+
+    public void invalidateStudent(Long studentId) {
+        synchronized (students) {
+            loading.remove(studentId);
+            students.remove(studentId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamChanged(ExamChangedEvent event) {
+        synchronized (students) {
+            examsGeneration.incrementAndGet();
+            activeExams = null;
+            loading.clear();
+            students.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        invalidateStudent(event.studentId());
+    }
+
+    private ActiveExams getActiveExams(long loadedAt) {
+        ActiveExams active = activeExams;
+        if (active != null) {
+            return active;
+        }
+        List<Exam> exams = examRepository.findActiveOrderById();
+        exams.forEach(entityManager::detach);
+        exams = Collections.unmodifiableList(exams);
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < exams.size(); i++) {
+            positions.put(exams.get(i).getId(), i);
+        }
+        active = new ActiveExams(exams, positions);
+        synchronized (students) {
+            if (activeExams != null) {
+                return activeExams;
+            }
+            if (examsGeneration.get() == loadedAt) {
+                activeExams = active;
+            }
+        }
+        return active;
+    }
+}
@@ -0,0 +1,102 @@
+package com.examportal.service;
+
+import com.examportal.repository.DashboardJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Admin dashboard counters, recomputed in one query and published as an immutable snapshot that
+// requests read without locking or touching the database. Writes that move a counter only mark the
+// snapshot dirty; the scheduler refreshes it at most every min-interval-ms, and at least every
+// max-age-ms to pick up changes that publish no event (bulk uploads, direct SQL).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardSnapshotService {
+
+    public record DashboardSnapshot(long activeExams, long totalStudents, long activeStudents, long inactiveStudents,
+                                    long totalQuestions, long completedSessions, long passedSessions,
+                                    LocalDateTime computedAt) {
+    }
+
+    private final DashboardJdbcRepository dashboardJdbcRepository;
+
+    @Value("${exam.dashboard-snapshot.min-interval-ms:5000}")
+    private long minIntervalMs;
+
+    @Value("${exam.dashboard-snapshot.max-age-ms:60000}")
+    private long maxAgeMs;
+
+    private volatile DashboardSnapshot snapshot;
+    private volatile long refreshedAt;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        refresh();
+    }
+
+    public DashboardSnapshot get() {
+        DashboardSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${exam.dashboard-snapshot.tick-ms:1000}")
+    public void tick() {
+        long age = System.currentTimeMillis() - refreshedAt;
+        if (age >= maxAgeMs || (dirty.get() && age >= minIntervalMs)) {
+            refresh();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        markDirty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamChanged(ExamChangedEvent event) {
+        markDirty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        markDirty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentRegistered(StudentRegisteredEvent event) {
+        markDirty();
+    }
+
+    // Keeps serving the previous snapshot when the refresh fails
+    private synchronized DashboardSnapshot refresh() {
+        dirty.set(false);
+        try {
+            long[] counters = dashboardJdbcRepository.readCounters();
+            snapshot = new DashboardSnapshot(counters[0], counters[1], counters[2], counters[3], counters[4],
+                    counters[5], counters[6], LocalDateTime.now());
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            log.error("Failed to refresh the dashboard snapshot: {}", e.getMessage());
+            if (snapshot == null) {
+                throw e;
+            }
+        } finally {
+            refreshedAt = System.currentTimeMillis();
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,144 @@
+package com.examportal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admission in front of session creation. A token bucket paces starts on this node, and per-exam
+// seat counters cap how many starts of one exam run at once. Callers over the limit get a ticket:
+// a booked slot in the bucket plus a queue position. They retry with it after Retry-After and are
+// let in at their slot, so the load ramps up instead of hitting the connection pool all at once.
+@Service
+@Slf4j
+public class ExamAdmissionService {
+
+    private final TokenBucket tokenBucket;
+    private final int seatsPerExam;
+    private final long maxQueueWaitNanos;
+    private final long ticketTtlNanos;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> seats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ExamAdmissionService(@Value("${exam.admission.starts-per-second:50}") double startsPerSecond,
+                                @Value("${exam.admission.burst:100}") int burst,
+                                @Value("${exam.admission.seats-per-exam:20}") int seatsPerExam,
+                                @Value("${exam.admission.max-queue-wait-seconds:300}") long maxQueueWaitSeconds,
+                                @Value("${exam.admission.ticket-ttl-seconds:60}") long ticketTtlSeconds) {
+        this.tokenBucket = new TokenBucket(startsPerSecond, burst);
+        this.seatsPerExam = seatsPerExam;
+        this.maxQueueWaitNanos = TimeUnit.SECONDS.toNanos(maxQueueWaitSeconds);
+        this.ticketTtlNanos = TimeUnit.SECONDS.toNanos(ticketTtlSeconds);
+    }
+
+    private record Ticket(Long examId, long slotNanos) {
+    }
+
+    // Outcome of an admission attempt; when not admitted, the caller retries after retryAfterMs with the ticket
+    public record Admission(boolean admitted, String ticket, long position, long retryAfterMs) {
+
+        static Admission granted() {
+            return new Admission(true, null, 0, 0);
+        }
+
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfterMs + 999) / 1000);
+        }
+    }
+
+    // An admitted caller holds one of the exam's seats and must call release(examId) when done
+    public Admission admit(Long examId, String ticketId) {
+        long now = System.nanoTime();
+
+        Ticket ticket = ticketId != null ? tickets.get(ticketId) : null;
+        if (ticket != null && ticket.examId().equals(examId)) {
+            if (now < ticket.slotNanos()) {
+                return waiting(ticketId, ticket.slotNanos() - now);
+            }
+            // The slot was paid for when the ticket was issued
+            if (tryTakeSeat(examId)) {
+                tickets.remove(ticketId);
+                admitted.incrementAndGet();
+                return Admission.granted();
+            }
+            return rebook(ticketId, examId, now);
+        }
+
+        long wait = tokenBucket.reserve(now, maxQueueWaitNanos);
+        if (wait < 0) {
+            rejected.incrementAndGet();
+            return new Admission(false, null, -1, TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos));
+        }
+        if (wait == 0 && tryTakeSeat(examId)) {
+            admitted.incrementAndGet();
+            return Admission.granted();
+        }
+
+        queued.incrementAndGet();
+        String newTicket = UUID.randomUUID().toString();
+        if (wait == 0) {
+            return rebook(newTicket, examId, now);
+        }
+        tickets.put(newTicket, new Ticket(examId, now + wait));
+        return waiting(newTicket, wait);
+    }
+
+    public void release(Long examId) {
+        AtomicInteger taken = seats.get(examId);
+        if (taken != null) {
+            taken.decrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "admitted", admitted.get(),
+                "queued", queued.get(),
+                "rejected", rejected.get(),
+                "outstandingTickets", tickets.size(),
+                "seatsInUse", seats.values().stream().mapToInt(AtomicInteger::get).sum());
+    }
+
+    // Drops tickets whose holders never came back
+    @Scheduled(fixedDelay = 30000)
+    public void expireTickets() {
+        long now = System.nanoTime();
+        tickets.values().removeIf(ticket -> now - ticket.slotNanos() > ticketTtlNanos);
+    }
+
+    private boolean tryTakeSeat(Long examId) {
+        AtomicInteger taken = seats.computeIfAbsent(examId, id -> new AtomicInteger());
+        while (true) {
+            int current = taken.get();
+            if (current >= seatsPerExam) {
+                return false;
+            }
+            if (taken.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // The slot came up but every seat is busy: book a fresh slot and keep the caller queued
+    private Admission rebook(String ticketId, Long examId, long now) {
+        long wait = Math.max(tokenBucket.reserve(now, Long.MAX_VALUE), tokenBucket.getIntervalNanos());
+        tickets.put(ticketId, new Ticket(examId, now + wait));
+        return waiting(ticketId, wait);
+    }
+
+    private Admission waiting(String ticketId, long waitNanos) {
+        long position = Math.max(1, waitNanos / Math.max(tokenBucket.getIntervalNanos(), 1));
+        return new Admission(false, ticketId, position, Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.examportal.service;
+
+import com.examportal.entity.ExamAnalytics;
+import com.examportal.repository.ExamAnalyticsJdbcRepository;
+import com.examportal.repository.ExamAnalyticsRepository;
+import com.examportal.repository.ExamRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps exam_analytics current: each graded session is added to its exam's row and the global row
+// right after the grading transaction commits, and an exam's rows are recomputed after a regrade or
+// an exam change. Readers get per-exam figures in O(exams) instead of scanning exam_sessions.
+// Each exam also keeps a fixed-bucket score histogram in exam_score_buckets; category and global
+// distributions are merged from the per-exam histograms.
+// A missed update (crash between grading and the update) is repaired by rebuildAll.
+@Service
+@Slf4j
+public class ExamAnalyticsService {
+
+    private final ExamAnalyticsRepository examAnalyticsRepository;
+    private final ExamAnalyticsJdbcRepository examAnalyticsJdbcRepository;
+    private final ExamRepository examRepository;
+    private final TransactionTemplate newTransaction;
+
+    public ExamAnalyticsService(ExamAnalyticsRepository examAnalyticsRepository,
+                                ExamAnalyticsJdbcRepository examAnalyticsJdbcRepository,
+                                ExamRepository examRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.examAnalyticsRepository = examAnalyticsRepository;
+        this.examAnalyticsJdbcRepository = examAnalyticsJdbcRepository;
+        this.examRepository = examRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // First start with the tables empty: build them from the sessions already completed
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!examAnalyticsRepository.existsById(ExamAnalytics.GLOBAL)
+                || (getGlobal().getAttempts() > 0 && !examAnalyticsJdbcRepository.hasScoreBuckets())) {
+            rebuildAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        int obtainedMarks = event.obtainedMarks() != null ? event.obtainedMarks() : 0;
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                boolean firstForExam = examAnalyticsJdbcRepository.isFirstCompletion(event.studentId(), event.examId(), event.sessionId());
+                boolean firstOverall = firstForExam
+                        && examAnalyticsJdbcRepository.isFirstCompletion(event.studentId(), null, event.sessionId());
+                examAnalyticsJdbcRepository.addSession(event.examId(), obtainedMarks, firstForExam, firstOverall);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to add session {} to the analytics of exam {}; rebuild analytics to repair: {}",
+                    event.sessionId(), event.examId(), e.getMessage());
+        }
+    }
+
+    // Pass marks or total marks may have changed, or the exam (and its sessions) may be gone
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamChanged(ExamChangedEvent event) {
+        rebuildExam(event.examId());
+    }
+
+    public void rebuildExam(Long examId) {
+        newTransaction.executeWithoutResult(status -> examAnalyticsJdbcRepository.rebuildExam(examId));
+    }
+
+    public void rebuildAll() {
+        newTransaction.executeWithoutResult(status -> examAnalyticsJdbcRepository.rebuildAll());
+        log.info("Rebuilt exam analytics from exam_sessions");
+    }
+
+    public ExamAnalytics getGlobal() {
+        return examAnalyticsRepository.findById(ExamAnalytics.GLOBAL).orElseGet(() -> {
+            ExamAnalytics empty = new ExamAnalytics();
+            empty.setExamId(ExamAnalytics.GLOBAL);
+            return empty;
+        });
+    }
+
+    // examId -> aggregates, for exams with at least one completed session
+    public Map<Long, ExamAnalytics> getByExam() {
+        Map<Long, ExamAnalytics> byExam = new HashMap<>();
+        for (ExamAnalytics analytics : examAnalyticsRepository.findAll()) {
+            if (analytics.getExamId() != ExamAnalytics.GLOBAL) {
+                byExam.put(analytics.getExamId(), analytics);
+            }
+        }
+        return byExam;
+    }
+
+    public ScoreHistogram getExamHistogram(Long examId) {
+        return mergeHistograms(examAnalyticsJdbcRepository.findScoreBuckets(List.of(examId)));
+    }
+
+    public ScoreHistogram getCategoryHistogram(Long categoryId) {
+        return mergeHistograms(examAnalyticsJdbcRepository.findScoreBuckets(examRepository.findIdsByCategoryId(categoryId)));
+    }
+
+    public ScoreHistogram getGlobalHistogram() {
+        return mergeHistograms(examAnalyticsJdbcRepository.findScoreBuckets(null));
+    }
+
+    // Every exam shares the same buckets, so each (examId, bucket, count) row adds straight into one histogram
+    private static ScoreHistogram mergeHistograms(List<Object[]> buckets) {
+        ScoreHistogram merged = new ScoreHistogram();
+        for (Object[] row : buckets) {
+            merged.add((Integer) row[1], (Long) row[2]);
+        }
+        return merged;
+    }
+}
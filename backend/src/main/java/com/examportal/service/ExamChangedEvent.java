@@ -0,0 +1,5 @@
+package com.examportal.service;
+
+// Published by ExamService whenever an exam is created, edited (including activation) or deleted
+public record ExamChangedEvent(Long examId) {
+}
@@ -0,0 +1,7 @@
+package com.examportal.service;
+
+import java.time.LocalDateTime;
+
+// Published by ExamService after a new exam has been saved
+public record ExamCreatedEvent(Long examId, String title, LocalDateTime createdAt) {
+}
@@ -4,7 +4,10 @@ import com.examportal.entity.Exam;
 import com.examportal.entity.ExamCategory;
 import com.examportal.repository.ExamRepository;
 import com.examportal.repository.ExamCategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,11 @@ public class ExamService {
     
     private final ExamRepository examRepository;
     private final ExamCategoryRepository examCategoryRepository;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     public List<Exam> getAllActiveExams() {
         return examRepository.findByIsActiveTrue();
@@ -29,12 +37,21 @@ public class ExamService {
         return examRepository.findByIsActiveTrue(pageable);
     }
     
+    // Concurrent requests for the same exam share one query. The exam is detached before it is handed
+    // to other threads, so none of them touches the loading thread's persistence context.
     public Optional<Exam> getExamById(Long id) {
-        return examRepository.findById(id);
+        return singleFlightRegistry.<Long, Optional<Exam>>get("exam")
+                .execute(id, () -> examRepository.findWithCategoryById(id).map(exam -> {
+                    entityManager.detach(exam);
+                    return exam;
+                }));
     }
     
     public Exam createExam(Exam exam) {
-        return examRepository.save(exam);
+        Exam saved = examRepository.save(exam);
+        eventPublisher.publishEvent(new ExamChangedEvent(saved.getId()));
+        eventPublisher.publishEvent(new ExamCreatedEvent(saved.getId(), saved.getTitle(), saved.getCreatedAt()));
+        return saved;
     }
     
     public Exam updateExam(Long id, Exam examDetails) {
@@ -48,12 +65,18 @@ public class ExamService {
         exam.setPassingMarks(examDetails.getPassingMarks());
         exam.setInstructions(examDetails.getInstructions());
         exam.setIsActive(examDetails.getIsActive());
+        exam.setPoolEasyCount(examDetails.getPoolEasyCount());
+        exam.setPoolMediumCount(examDetails.getPoolMediumCount());
+        exam.setPoolHardCount(examDetails.getPoolHardCount());
         
-        return examRepository.save(exam);
+        Exam saved = examRepository.save(exam);
+        eventPublisher.publishEvent(new ExamChangedEvent(id));
+        return saved;
     }
     
     public void deleteExam(Long id) {
         examRepository.deleteById(id);
+        eventPublisher.publishEvent(new ExamChangedEvent(id));
     }
     
     public List<Exam> getExamsByCategory(Long categoryId) {
@@ -65,8 +88,14 @@ public class ExamService {
     }
     
     // Exam Category methods
+    // Shared between coalesced callers like getExamById, so detached for the same reason
     public List<ExamCategory> getAllCategories() {
-        return examCategoryRepository.findAll();
+        return singleFlightRegistry.<String, List<ExamCategory>>get("categories")
+                .execute("all", () -> {
+                    List<ExamCategory> categories = examCategoryRepository.findAll();
+                    categories.forEach(entityManager::detach);
+                    return List.copyOf(categories);
+                });
     }
     
     public ExamCategory createCategory(ExamCategory category) {
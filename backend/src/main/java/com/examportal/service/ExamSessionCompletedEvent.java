@@ -0,0 +1,8 @@
+package com.examportal.service;
+
+import java.time.LocalDateTime;
+
+// Published by GradingService when a session has been graded and moved to COMPLETED
+public record ExamSessionCompletedEvent(Long sessionId, Long examId, Long studentId,
+                                        Integer obtainedMarks, Integer totalMarks, LocalDateTime endTime) {
+}
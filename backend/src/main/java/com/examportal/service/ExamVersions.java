@@ -0,0 +1,41 @@
+package com.examportal.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-exam invalidation counters for caches that load outside any lock. A loader reads the version
+// first and caches its result only if the version is unchanged, re-checking after the put because an
+// invalidation can land between the check and the put. Invalidation bumps the version, then removes
+// the entry. An edit to one exam never stops caching for another.
+final class ExamVersions {
+
+    // Loads of the same exam at the same version coalesce; a load started before an edit never
+    // answers a caller that read the version after it
+    record Load(Long examId, long version) {
+    }
+
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+
+    long current(Long examId) {
+        return versions.getOrDefault(examId, 0L);
+    }
+
+    void invalidate(ConcurrentHashMap<Long, ?> cache, Long examId) {
+        versions.merge(examId, 1L, Long::sum);
+        cache.remove(examId);
+    }
+
+    // Caches the value loaded at loadedAt unless the exam changed meanwhile; returns the value to use
+    <V> V cache(ConcurrentHashMap<Long, V> cache, Long examId, long loadedAt, V value) {
+        if (current(examId) != loadedAt) {
+            return value;
+        }
+        V existing = cache.putIfAbsent(examId, value);
+        if (existing != null) {
+            return existing;
+        }
+        if (current(examId) != loadedAt) {
+            cache.remove(examId, value);
+        }
+        return value;
+    }
+}
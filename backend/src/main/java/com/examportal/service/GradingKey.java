@@ -0,0 +1,83 @@
+package com.examportal.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Immutable answer key of one exam, indexed by position in the sorted question id array
+public final class GradingKey {
+
+    private static final byte NO_OPTION = -1;
+
+    private final long[] questionIds;
+    private final byte[] correctOptions;
+    private final int[] marks;
+    private final int totalMarks;
+
+    private GradingKey(long[] questionIds, byte[] correctOptions, int[] marks) {
+        this.questionIds = questionIds;
+        this.correctOptions = correctOptions;
+        this.marks = marks;
+        this.totalMarks = Arrays.stream(marks).sum();
+    }
+
+    // Rows are (questionId, correctAnswer, marks) ordered by question id
+    public static GradingKey fromRows(List<Object[]> rows) {
+        long[] questionIds = new long[rows.size()];
+        byte[] correctOptions = new byte[rows.size()];
+        int[] marks = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            questionIds[i] = ((Number) row[0]).longValue();
+            correctOptions[i] = optionIndex((String) row[1]);
+            marks[i] = row[2] != null ? ((Number) row[2]).intValue() : 0;
+        }
+        return new GradingKey(questionIds, correctOptions, marks);
+    }
+
+    // Rows are (questionId, selectedAnswer); answers to questions outside the key score nothing
+    public int score(List<Object[]> answers) {
+        int obtained = 0;
+        for (Object[] answer : answers) {
+            int index = indexOf(((Number) answer[0]).longValue());
+            if (index < 0) {
+                continue;
+            }
+            byte option = optionIndex((String) answer[1]);
+            if (option != NO_OPTION && option == correctOptions[index]) {
+                obtained += marks[index];
+            }
+        }
+        return Math.min(obtained, totalMarks);
+    }
+
+    public boolean isCorrect(long questionId, String answer) {
+        int index = indexOf(questionId);
+        byte option = optionIndex(answer);
+        return index >= 0 && option != NO_OPTION && option == correctOptions[index];
+    }
+
+    public int indexOf(long questionId) {
+        return Arrays.binarySearch(questionIds, questionId);
+    }
+
+    // Shared, sorted question ids of the exam; callers must not modify the array
+    long[] getQuestionIds() {
+        return questionIds;
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public int getTotalMarks() {
+        return totalMarks;
+    }
+
+    public static byte optionIndex(String answer) {
+        if (answer == null || answer.length() != 1) {
+            return NO_OPTION;
+        }
+        int option = answer.charAt(0) - 'A';
+        return option >= 0 && option < 4 ? (byte) option : NO_OPTION;
+    }
+}
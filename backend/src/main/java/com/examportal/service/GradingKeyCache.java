@@ -0,0 +1,35 @@
+package com.examportal.service;
+
+import com.examportal.repository.QuestionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class GradingKeyCache {
+
+    private final QuestionRepository questionRepository;
+
+    private final ConcurrentHashMap<Long, GradingKey> keys = new ConcurrentHashMap<>();
+    // A key loaded before a question edit committed is never cached
+    private final ExamVersions versions = new ExamVersions();
+
+    public GradingKey get(Long examId) {
+        GradingKey key = keys.get(examId);
+        if (key != null) {
+            return key;
+        }
+
+        long loadedAt = versions.current(examId);
+        key = GradingKey.fromRows(questionRepository.findGradingKeyRowsByExamId(examId));
+        return versions.cache(keys, examId, loadedAt, key);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        versions.invalidate(keys, event.examId());
+    }
+}
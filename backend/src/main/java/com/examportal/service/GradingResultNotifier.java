@@ -0,0 +1,34 @@
+package com.examportal.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Wakes long-polling result requests on this node once their session has been graded
+@Component
+public class GradingResultNotifier {
+
+    private final ConcurrentHashMap<Long, List<Runnable>> waiters = new ConcurrentHashMap<>();
+
+    public void await(Long sessionId, Runnable onGraded) {
+        waiters.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(onGraded);
+    }
+
+    public void cancel(Long sessionId, Runnable onGraded) {
+        waiters.computeIfPresent(sessionId, (id, callbacks) -> {
+            callbacks.remove(onGraded);
+            return callbacks.isEmpty() ? null : callbacks;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        List<Runnable> callbacks = waiters.remove(event.sessionId());
+        if (callbacks != null) {
+            callbacks.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.examportal.service;
+
+import com.examportal.entity.ExamSession;
+import com.examportal.repository.ExamSessionRepository;
+import com.examportal.repository.StudentAnswerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GradingService {
+    
+    private final ExamSessionRepository examSessionRepository;
+    private final StudentAnswerRepository studentAnswerRepository;
+    private final GradingKeyCache gradingKeyCache;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Grades a SUBMITTED session and moves it to COMPLETED; anything else is left untouched
+    public void gradeSession(Long sessionId) {
+        ExamSession session = examSessionRepository.findById(sessionId).orElse(null);
+        if (session == null || session.getStatus() != ExamSession.Status.SUBMITTED) {
+            return;
+        }
+        
+        // Grade against the cached answer key; only (questionId, selectedAnswer) pairs are read
+        GradingKey gradingKey = gradingKeyCache.get(session.getExam().getId());
+        List<Object[]> answers = studentAnswerRepository.findSelectedAnswersBySessionId(sessionId);
+        // On pooled exams only the session's own draw counts
+        long[] drawn = QuestionPoolIndex.decode(session.getQuestionIds());
+        if (drawn != null) {
+            answers = answers.stream()
+                    .filter(row -> Arrays.binarySearch(drawn, (Long) row[0]) >= 0)
+                    .toList();
+        }
+        session.setObtainedMarks(gradingKey.score(answers));
+        
+        // Keep the whole answer sheet on the session so result views need not read student_answers again
+        Map<Long, String> selected = new HashMap<>();
+        answers.forEach(row -> selected.put((Long) row[0], (String) row[1]));
+        AnswerVector vector = AnswerVector.fromAnswers(drawn != null ? drawn : gradingKey.getQuestionIds(), selected,
+                questionId -> gradingKey.isCorrect(questionId, selected.get(questionId)));
+        session.setAnswerVector(vector.encodeAnswers());
+        session.setCorrectnessBitmap(vector.encodeCorrectness());
+        session.setStatus(ExamSession.Status.COMPLETED);
+        examSessionRepository.save(session);
+        
+        eventPublisher.publishEvent(new ExamSessionCompletedEvent(session.getId(), session.getExam().getId(),
+                session.getStudent().getId(), session.getObtainedMarks(), session.getExam().getTotalMarks(),
+                session.getEndTime()));
+    }
+}
@@ -0,0 +1,136 @@
+package com.examportal.service;
+
+import com.examportal.entity.GradingTask;
+import com.examportal.repository.GradingTaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Drains grading_tasks. Each worker claims a batch with SELECT ... FOR UPDATE SKIP LOCKED, so any
+// number of workers on any number of nodes can share the queue without grading a session twice.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GradingWorker {
+
+    private final GradingTaskRepository gradingTaskRepository;
+    private final GradingService gradingService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${exam.grading.workers:2}")
+    private int workerCount;
+
+    @Value("${exam.grading.batch-size:50}")
+    private int batchSize;
+
+    @Value("${exam.grading.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${exam.grading.max-attempts:5}")
+    private int maxAttempts;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        running = true;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::run, "grading-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    private void run() {
+        while (running) {
+            int graded = 0;
+            try {
+                graded = gradeBatch();
+            } catch (RuntimeException e) {
+                log.error("Grading worker failed: {}", e.getMessage());
+            }
+            if (graded == 0) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Grades a claimed batch in one transaction; if any session fails, the batch is retried one task at a time
+    private int gradeBatch() {
+        List<Long> claimedIds = new ArrayList<>();
+        try {
+            Integer graded = transactionTemplate.execute(status -> {
+                List<GradingTask> tasks = gradingTaskRepository.claimPending(LocalDateTime.now(), batchSize);
+                for (GradingTask task : tasks) {
+                    claimedIds.add(task.getId());
+                    gradingService.gradeSession(task.getExamSessionId());
+                    gradingTaskRepository.delete(task);
+                }
+                return tasks.size();
+            });
+            return graded != null ? graded : 0;
+        } catch (RuntimeException e) {
+            claimedIds.forEach(this::gradeSingle);
+            return claimedIds.size();
+        }
+    }
+
+    private void gradeSingle(Long taskId) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    gradingTaskRepository.claimById(taskId).ifPresent(task -> {
+                        gradingService.gradeSession(task.getExamSessionId());
+                        gradingTaskRepository.delete(task);
+                    }));
+        } catch (RuntimeException e) {
+            recordFailure(taskId, e);
+        }
+    }
+
+    private void recordFailure(Long taskId, RuntimeException failure) {
+        transactionTemplate.executeWithoutResult(status ->
+                gradingTaskRepository.claimById(taskId).ifPresent(task -> {
+                    task.setAttempts(task.getAttempts() + 1);
+                    task.setLastError(failure.getMessage());
+                    // Back off exponentially before the next attempt
+                    task.setAvailableAt(LocalDateTime.now().plusSeconds(1L << Math.min(task.getAttempts(), 10)));
+                    if (task.getAttempts() >= maxAttempts) {
+                        task.setStatus(GradingTask.Status.FAILED);
+                        log.error("Giving up grading session {} after {} attempts: {}",
+                                task.getExamSessionId(), task.getAttempts(), failure.getMessage());
+                    }
+                    gradingTaskRepository.save(task);
+                }));
+    }
+}
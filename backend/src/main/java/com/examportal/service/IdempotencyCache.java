@@ -0,0 +1,94 @@
+package com.examportal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Bounded window of responses to recent writes, keyed by (operation, session, Idempotency-Key). A retry
+// carrying a key seen within the window gets the first response back without running the write again;
+// concurrent retries of a write still in flight wait for it through a SingleFlight. Failed writes are
+// not remembered, so they can be retried with the same key.
+@Component
+public class IdempotencyCache {
+
+    private final SingleFlight<String, Object> inFlight;
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    @Value("${exam.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${exam.idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private record Entry(Object response, long storedAtMillis) {
+    }
+
+    // Insertion order is expiry order, so the eldest entry is the first to go either way
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public IdempotencyCache(SingleFlightRegistry singleFlightRegistry) {
+        this.inFlight = singleFlightRegistry.get("idempotent-write");
+    }
+
+    // Runs the write once per key; a null key (client sent none) always runs it
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Long sessionId, String idempotencyKey, Supplier<T> write) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return write.get();
+        }
+        String key = operation + ":" + sessionId + ":" + idempotencyKey;
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        return (T) inFlight.execute(key, () -> {
+            // Another request may have finished the same write between the lookup and the flight starting
+            Object replayed = lookup(key);
+            if (replayed != null) {
+                return replayed;
+            }
+            executions.increment();
+            T response = write.get();
+            synchronized (window) {
+                window.put(key, new Entry(response, System.currentTimeMillis()));
+            }
+            return response;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (window) {
+            stats.put("entries", window.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("executions", executions.sum());
+        stats.put("replays", replays.sum());
+        return stats;
+    }
+
+    private Object lookup(String key) {
+        synchronized (window) {
+            Entry entry = window.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.storedAtMillis() > ttlSeconds * 1000) {
+                window.remove(key);
+                return null;
+            }
+            replays.increment();
+            return entry.response();
+        }
+    }
+}
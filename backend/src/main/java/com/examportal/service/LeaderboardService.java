@@ -0,0 +1,346 @@
+package com.examportal.service;
+
+import com.examportal.entity.Student;
+import com.examportal.repository.ExamSessionJdbcRepository;
+import com.examportal.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory leaderboards on indexable skip lists. Per exam: each student's best completed session,
+// ordered by marks (desc), completion time, student id. Globally: students ordered by the average of
+// their per-exam best percentages. Built from exam_sessions at startup and kept current from
+// completion events; an exam's board is reloaded after a regrade or an exam change.
+// Top-K is O(K) and a student's rank O(log n).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardService {
+
+    private record ExamEntry(long studentId, long sessionId, int obtainedMarks, double percentage,
+                             LocalDateTime endTime) {
+    }
+
+    private record StudentEntry(long studentId, double percentageSum, int exams) {
+        double averagePercentage() {
+            return percentageSum / exams;
+        }
+    }
+
+    private record Completion(long examId, ExamEntry entry) {
+    }
+
+    private static final Comparator<ExamEntry> EXAM_ORDER = Comparator.comparingInt(ExamEntry::obtainedMarks).reversed()
+            .thenComparing(ExamEntry::endTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(ExamEntry::studentId);
+
+    private static final Comparator<StudentEntry> STUDENT_ORDER = Comparator.comparingDouble(StudentEntry::averagePercentage)
+            .reversed()
+            .thenComparingLong(StudentEntry::studentId);
+
+    private static final class ExamBoard {
+        final Map<Long, ExamEntry> byStudent = new HashMap<>();
+        final IndexableSkipList<ExamEntry> ranking = new IndexableSkipList<>(EXAM_ORDER);
+    }
+
+    private final ExamSessionJdbcRepository examSessionJdbcRepository;
+    private final StudentRepository studentRepository;
+
+    // Every field below is guarded by this lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, ExamBoard> exams = new HashMap<>();
+    private final Map<Long, StudentEntry> students = new HashMap<>();
+    private final IndexableSkipList<StudentEntry> studentRanking = new IndexableSkipList<>(STUDENT_ORDER);
+    // Completions seen while a load is running, replayed once it lands; recording a session twice is harmless
+    private final List<Completion> pending = new ArrayList<>();
+    private int loading;
+
+    // Loads in the background so startup is not held up by a large exam_sessions table
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        Thread loader = new Thread(() -> {
+            try {
+                reload(null);
+                log.info("Loaded leaderboards of {} exams", examCount());
+            } catch (RuntimeException e) {
+                log.error("Failed to load leaderboards: {}", e.getMessage());
+            }
+        }, "leaderboard-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        int obtainedMarks = event.obtainedMarks() != null ? event.obtainedMarks() : 0;
+        ExamEntry entry = new ExamEntry(event.studentId(), event.sessionId(), obtainedMarks,
+                percentage(obtainedMarks, event.totalMarks()), event.endTime());
+        lock.writeLock().lock();
+        try {
+            if (loading > 0) {
+                pending.add(new Completion(event.examId(), entry));
+            }
+            record(event.examId(), entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Total marks may have changed, or the exam (and its sessions) may be gone
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExamChanged(ExamChangedEvent event) {
+        reloadExam(event.examId());
+    }
+
+    public void reloadExam(Long examId) {
+        reload(examId);
+    }
+
+    // examId null reloads every board
+    private void reload(Long examId) {
+        lock.writeLock().lock();
+        try {
+            loading++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Map<Long, Map<Long, ExamEntry>> best = new HashMap<>();
+            examSessionJdbcRepository.forEachCompletedScore(examId, rs -> {
+                Timestamp endTime = rs.getTimestamp(5);
+                ExamEntry entry = new ExamEntry(rs.getLong(3), rs.getLong(1), rs.getInt(4),
+                        percentage(rs.getInt(4), rs.getInt(6)), endTime != null ? endTime.toLocalDateTime() : null);
+                best.computeIfAbsent(rs.getLong(2), id -> new HashMap<>())
+                        .merge(entry.studentId(), entry, (a, b) -> EXAM_ORDER.compare(a, b) <= 0 ? a : b);
+            });
+
+            lock.writeLock().lock();
+            try {
+                Set<Long> examIds = new HashSet<>(best.keySet());
+                if (examId != null) {
+                    examIds.add(examId);
+                } else {
+                    examIds.addAll(exams.keySet());
+                }
+                for (Long id : examIds) {
+                    replaceBoard(id, best.getOrDefault(id, Map.of()));
+                }
+                for (Completion completion : pending) {
+                    if (examId == null || completion.examId() == examId) {
+                        record(completion.examId(), completion.entry());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (--loading == 0) {
+                    pending.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Best sessions of one exam, best first
+    public List<Map<String, Object>> getExamLeaderboard(Long examId, int limit) {
+        List<ExamEntry> top;
+        lock.readLock().lock();
+        try {
+            ExamBoard board = exams.get(examId);
+            top = board != null ? board.ranking.first(limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, String> names = studentNames(top.stream().map(ExamEntry::studentId).toList());
+        List<Map<String, Object>> leaderboard = new ArrayList<>(top.size());
+        for (ExamEntry entry : top) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", leaderboard.size() + 1);
+            row.put("studentId", entry.studentId());
+            row.put("studentName", names.get(entry.studentId()));
+            row.put("sessionId", entry.sessionId());
+            row.put("obtainedMarks", entry.obtainedMarks());
+            row.put("percentage", round(entry.percentage()));
+            row.put("completedAt", entry.endTime());
+            leaderboard.add(row);
+        }
+        return leaderboard;
+    }
+
+    // Students by average best percentage across the exams they completed, best first
+    public List<Map<String, Object>> getTopStudents(int limit) {
+        List<StudentEntry> top;
+        lock.readLock().lock();
+        try {
+            top = studentRanking.first(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, String> names = studentNames(top.stream().map(StudentEntry::studentId).toList());
+        List<Map<String, Object>> leaderboard = new ArrayList<>(top.size());
+        for (StudentEntry entry : top) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", leaderboard.size() + 1);
+            row.put("studentId", entry.studentId());
+            row.put("studentName", names.get(entry.studentId()));
+            row.put("averageScore", round(entry.averagePercentage()));
+            row.put("examsTaken", entry.exams());
+            leaderboard.add(row);
+        }
+        return leaderboard;
+    }
+
+    // The student's standing on one exam; rank is null until they have completed it
+    public Map<String, Object> getExamRank(Long examId, Long studentId) {
+        Map<String, Object> standing = new LinkedHashMap<>();
+        standing.put("examId", examId);
+        lock.readLock().lock();
+        try {
+            ExamBoard board = exams.get(examId);
+            ExamEntry entry = board != null ? board.byStudent.get(studentId) : null;
+            int total = board != null ? board.ranking.size() : 0;
+            putStanding(standing, entry != null ? board.ranking.rankOf(entry) : 0, total);
+            if (entry != null) {
+                standing.put("obtainedMarks", entry.obtainedMarks());
+                standing.put("percentage", round(entry.percentage()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return standing;
+    }
+
+    // The student's standing across all exams
+    public Map<String, Object> getOverallRank(Long studentId) {
+        Map<String, Object> standing = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            StudentEntry entry = students.get(studentId);
+            putStanding(standing, entry != null ? studentRanking.rankOf(entry) : 0, studentRanking.size());
+            if (entry != null) {
+                standing.put("averageScore", round(entry.averagePercentage()));
+                standing.put("examsTaken", entry.exams());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return standing;
+    }
+
+    // Keeps the student's best session of the exam; caller holds the write lock
+    private void record(long examId, ExamEntry entry) {
+        ExamBoard board = exams.computeIfAbsent(examId, id -> new ExamBoard());
+        ExamEntry current = board.byStudent.get(entry.studentId());
+        if (current != null && EXAM_ORDER.compare(current, entry) <= 0) {
+            return;
+        }
+        if (current != null) {
+            board.ranking.remove(current);
+        }
+        board.byStudent.put(entry.studentId(), entry);
+        board.ranking.add(entry);
+        updateStudent(entry.studentId(), current, entry);
+    }
+
+    // Swaps in a freshly loaded board and moves each affected student's overall standing by the difference
+    private void replaceBoard(Long examId, Map<Long, ExamEntry> entries) {
+        ExamBoard previous = exams.remove(examId);
+        ExamBoard board = new ExamBoard();
+        for (ExamEntry entry : entries.values()) {
+            board.byStudent.put(entry.studentId(), entry);
+            board.ranking.add(entry);
+        }
+        if (!entries.isEmpty()) {
+            exams.put(examId, board);
+        }
+
+        Set<Long> studentIds = new HashSet<>(entries.keySet());
+        if (previous != null) {
+            studentIds.addAll(previous.byStudent.keySet());
+        }
+        for (Long studentId : studentIds) {
+            ExamEntry before = previous != null ? previous.byStudent.get(studentId) : null;
+            ExamEntry after = entries.get(studentId);
+            if (before != after) {
+                updateStudent(studentId, before, after);
+            }
+        }
+    }
+
+    private void updateStudent(long studentId, ExamEntry before, ExamEntry after) {
+        StudentEntry current = students.get(studentId);
+        double percentageSum = current != null ? current.percentageSum() : 0;
+        int examCount = current != null ? current.exams() : 0;
+        if (before != null) {
+            percentageSum -= before.percentage();
+            examCount--;
+        }
+        if (after != null) {
+            percentageSum += after.percentage();
+            examCount++;
+        }
+        if (current != null) {
+            studentRanking.remove(current);
+        }
+        if (examCount > 0) {
+            StudentEntry updated = new StudentEntry(studentId, percentageSum, examCount);
+            students.put(studentId, updated);
+            studentRanking.add(updated);
+        } else {
+            students.remove(studentId);
+        }
+    }
+
+    private int examCount() {
+        lock.readLock().lock();
+        try {
+            return exams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, String> studentNames(List<Long> studentIds) {
+        Map<Long, String> names = new HashMap<>();
+        for (Student student : studentRepository.findAllById(studentIds)) {
+            names.put(student.getId(), student.getFullName());
+        }
+        return names;
+    }
+
+    // percentile: share of ranked candidates at or below this one
+    private static void putStanding(Map<String, Object> target, int rank, int total) {
+        target.put("rank", rank > 0 ? rank : null);
+        target.put("total", total);
+        target.put("percentile", rank > 0 ? round((total - rank + 1) * 100.0 / total) : null);
+    }
+
+    private static double percentage(int obtainedMarks, Integer totalMarks) {
+        return totalMarks != null && totalMarks > 0 ? obtainedMarks * 100.0 / totalMarks : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,6 @@
+package com.examportal.service;
+
+// Published by QuestionService whenever a question of the exam is created, edited or deleted.
+// answerKeyChanged is set when stored grades may no longer match (correct answer or marks changed, or deletion).
+public record QuestionChangedEvent(Long examId, Long questionId, boolean answerKeyChanged) {
+}
@@ -0,0 +1,211 @@
+package com.examportal.service;
+
+import com.examportal.entity.Question;
+import com.examportal.repository.QuestionRepository;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+// Per-exam question paper as ready-to-send JSON, with correct answers stripped. Both the identity
+// and gzip bodies are kept, each with its own strong ETag, so a repeat request is a byte copy.
+@Component
+public class QuestionPaperCache {
+
+    private final QuestionRepository questionRepository;
+    private final ObjectWriter paperWriter;
+    private final ObjectWriter valueWriter;
+    private final SingleFlight<ExamVersions.Load, QuestionPaper> paperLoads;
+
+    private final ConcurrentHashMap<Long, QuestionPaper> papers = new ConcurrentHashMap<>();
+    // A paper built before a question edit committed is never cached
+    private final ExamVersions versions = new ExamVersions();
+
+    public QuestionPaperCache(QuestionRepository questionRepository, ObjectMapper objectMapper,
+                              SingleFlightRegistry singleFlightRegistry) {
+        this.questionRepository = questionRepository;
+        this.paperLoads = singleFlightRegistry.get("question-paper");
+        this.valueWriter = objectMapper.writer();
+        this.paperWriter = objectMapper.copy()
+                .addMixIn(Question.class, StudentQuestionView.class)
+                .writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Question.class));
+    }
+
+    @JsonIgnoreProperties({"correctAnswer"})
+    private abstract static class StudentQuestionView {
+    }
+
+    // One question split into pre-serialized pieces, so a shuffled paper is assembled by copying bytes
+    private record QuestionFragment(long questionId, byte[] head, byte[][] options, byte[] tail) {
+    }
+
+    private static final byte[][] OPTION_KEYS = {
+            ",\"optionA\":".getBytes(StandardCharsets.UTF_8),
+            ",\"optionB\":".getBytes(StandardCharsets.UTF_8),
+            ",\"optionC\":".getBytes(StandardCharsets.UTF_8),
+            ",\"optionD\":".getBytes(StandardCharsets.UTF_8)
+    };
+
+    private static final int[] CANONICAL_OPTIONS = {0, 1, 2, 3};
+
+    @Getter
+    public static final class QuestionPaper {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final String gzipEtag;
+        @Getter(AccessLevel.NONE)
+        private final List<QuestionFragment> fragments;
+        @Getter(AccessLevel.NONE)
+        private final long[] ids;
+
+        private QuestionPaper(byte[] json, byte[] gzip, String etag, List<QuestionFragment> fragments) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = "\"" + etag + "\"";
+            this.gzipEtag = "\"" + etag + "-gz\"";
+            this.fragments = fragments;
+            this.ids = fragments.stream().mapToLong(QuestionFragment::questionId).toArray();
+        }
+
+        // True when an If-None-Match header names either representation of this paper
+        public boolean matches(String ifNoneMatch) {
+            return matches(ifNoneMatch, etag) || matches(ifNoneMatch, gzipEtag);
+        }
+
+        // A drawn subset of the paper, in canonical order (shuffle == null) or in the session's question and
+        // option order; questionIds == null means the whole paper. O(n) over the cached fragments.
+        public byte[] render(SessionShuffle shuffle, long[] questionIds) {
+            int[] selected = select(questionIds);
+            int[] order = shuffle != null ? shuffle.questionOrder(selected.length) : null;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    (int) Math.min(Integer.MAX_VALUE - 8, (long) json.length * selected.length / Math.max(fragments.size(), 1) + 64));
+            out.write('[');
+            for (int position = 0; position < selected.length; position++) {
+                if (position > 0) {
+                    out.write(',');
+                }
+                QuestionFragment fragment = fragments.get(selected[order != null ? order[position] : position]);
+                int[] options = shuffle != null ? shuffle.optionOrder(fragment.questionId()) : CANONICAL_OPTIONS;
+                out.writeBytes(fragment.head());
+                for (int d = 0; d < options.length; d++) {
+                    out.writeBytes(OPTION_KEYS[d]);
+                    out.writeBytes(fragment.options()[options[d]]);
+                }
+                out.writeBytes(fragment.tail());
+            }
+            out.write(']');
+            return out.toByteArray();
+        }
+
+        // Fragment indexes of the given question ids; fragments are in ascending id order
+        private int[] select(long[] questionIds) {
+            if (questionIds == null) {
+                int[] all = new int[fragments.size()];
+                for (int i = 0; i < all.length; i++) {
+                    all[i] = i;
+                }
+                return all;
+            }
+            int[] selected = new int[questionIds.length];
+            int count = 0;
+            for (long questionId : questionIds) {
+                int index = Arrays.binarySearch(ids, questionId);
+                if (index >= 0) {
+                    selected[count++] = index;
+                }
+            }
+            return Arrays.copyOf(selected, count);
+        }
+
+        // A session's paper is a pure function of the cached paper, the session id and its (fixed) draw
+        public String shuffledEtag(Long sessionId) {
+            return "\"" + etag.substring(1, etag.length() - 1) + "-s" + sessionId + "\"";
+        }
+
+        public static boolean matches(String ifNoneMatch, String etag) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            return Arrays.stream(ifNoneMatch.split(","))
+                    .map(String::trim)
+                    .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+        }
+    }
+
+    public QuestionPaper get(Long examId) {
+        QuestionPaper paper = papers.get(examId);
+        if (paper != null) {
+            return paper;
+        }
+
+        // A burst of misses at exam start builds the paper once
+        long loadedAt = versions.current(examId);
+        paper = paperLoads.execute(new ExamVersions.Load(examId, loadedAt),
+                () -> build(questionRepository.findByExamIdOrderById(examId)));
+        return versions.cache(papers, examId, loadedAt, paper);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        versions.invalidate(papers, event.examId());
+    }
+
+    private QuestionPaper build(List<Question> questions) {
+        try {
+            byte[] json = paperWriter.writeValueAsBytes(questions);
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+
+            List<QuestionFragment> fragments = new ArrayList<>(questions.size());
+            for (Question question : questions) {
+                fragments.add(fragment(question));
+            }
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return new QuestionPaper(json, compressed.toByteArray(), HexFormat.of().formatHex(digest, 0, 16), fragments);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize question paper", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private QuestionFragment fragment(Question question) throws JsonProcessingException {
+        String head = "{\"id\":" + question.getId()
+                + ",\"examId\":" + question.getExamId()
+                + ",\"questionText\":" + valueWriter.writeValueAsString(question.getQuestionText());
+        String tail = ",\"marks\":" + question.getMarks()
+                + ",\"difficultyLevel\":" + valueWriter.writeValueAsString(question.getDifficultyLevel()) + "}";
+        byte[][] options = {
+                valueWriter.writeValueAsBytes(question.getOptionA()),
+                valueWriter.writeValueAsBytes(question.getOptionB()),
+                valueWriter.writeValueAsBytes(question.getOptionC()),
+                valueWriter.writeValueAsBytes(question.getOptionD())
+        };
+        return new QuestionFragment(question.getId(), head.getBytes(StandardCharsets.UTF_8), options, tail.getBytes(StandardCharsets.UTF_8));
+    }
+}
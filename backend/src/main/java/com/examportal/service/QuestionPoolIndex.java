@@ -0,0 +1,119 @@
+package com.examportal.service;
+
+import com.examportal.entity.Exam;
+import com.examportal.entity.Question;
+import com.examportal.repository.QuestionRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+
+// Per-exam question ids bucketed by difficulty, for drawing a session's paper from a large bank.
+// Draws use Floyd's algorithm, so a draw costs O(k) for k questions regardless of the bank size.
+@Component
+public class QuestionPoolIndex {
+
+    private final QuestionRepository questionRepository;
+    private final SingleFlight<ExamVersions.Load, Pool> poolLoads;
+
+    private final ConcurrentHashMap<Long, Pool> pools = new ConcurrentHashMap<>();
+    // A pool loaded before a question edit committed is never cached
+    private final ExamVersions versions = new ExamVersions();
+
+    public QuestionPoolIndex(QuestionRepository questionRepository, SingleFlightRegistry singleFlightRegistry) {
+        this.questionRepository = questionRepository;
+        this.poolLoads = singleFlightRegistry.get("question-pool");
+    }
+
+    private record Pool(long[] easy, long[] medium, long[] hard) {
+    }
+
+    // Returns the drawn question ids in ascending order
+    public long[] draw(Exam exam) {
+        return draw(exam, ThreadLocalRandom.current());
+    }
+
+    public long[] draw(Exam exam, RandomGenerator random) {
+        Pool pool = get(exam.getId());
+        int easy = count(exam.getPoolEasyCount());
+        int medium = count(exam.getPoolMediumCount());
+        int hard = count(exam.getPoolHardCount());
+
+        long[] drawn = new long[easy + medium + hard];
+        sample(pool.easy(), easy, Question.DifficultyLevel.EASY, random, drawn, 0);
+        sample(pool.medium(), medium, Question.DifficultyLevel.MEDIUM, random, drawn, easy);
+        sample(pool.hard(), hard, Question.DifficultyLevel.HARD, random, drawn, easy + medium);
+        Arrays.sort(drawn);
+        return drawn;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        versions.invalidate(pools, event.examId());
+    }
+
+    public static String encode(long[] questionIds) {
+        return Arrays.stream(questionIds).mapToObj(Long::toString).collect(Collectors.joining(","));
+    }
+
+    public static long[] decode(String questionIds) {
+        if (questionIds == null || questionIds.isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(questionIds.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+
+    private Pool get(Long examId) {
+        Pool pool = pools.get(examId);
+        if (pool != null) {
+            return pool;
+        }
+
+        long loadedAt = versions.current(examId);
+        pool = poolLoads.execute(new ExamVersions.Load(examId, loadedAt),
+                () -> build(questionRepository.findPoolRowsByExamId(examId)));
+        return versions.cache(pools, examId, loadedAt, pool);
+    }
+
+    private static Pool build(List<Object[]> rows) {
+        long[][] buckets = new long[3][rows.size()];
+        int[] sizes = new int[3];
+        for (Object[] row : rows) {
+            int bucket = ((Question.DifficultyLevel) row[1]).ordinal();
+            buckets[bucket][sizes[bucket]++] = (Long) row[0];
+        }
+        return new Pool(Arrays.copyOf(buckets[Question.DifficultyLevel.EASY.ordinal()], sizes[0]),
+                Arrays.copyOf(buckets[Question.DifficultyLevel.MEDIUM.ordinal()], sizes[1]),
+                Arrays.copyOf(buckets[Question.DifficultyLevel.HARD.ordinal()], sizes[2]));
+    }
+
+    // Floyd's algorithm: k distinct indexes out of n with exactly k random draws
+    private static void sample(long[] bucket, int k, Question.DifficultyLevel level, RandomGenerator random,
+                               long[] into, int offset) {
+        int n = bucket.length;
+        if (k > n) {
+            throw new RuntimeException("Question pool has only " + n + " " + level + " questions, " + k + " required");
+        }
+        Set<Integer> chosen = new HashSet<>(k * 2);
+        int filled = offset;
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int pick = chosen.add(t) ? t : j;
+            if (pick == j) {
+                chosen.add(j);
+            }
+            into[filled++] = bucket[pick];
+        }
+    }
+
+    private static int count(Integer value) {
+        return value != null ? Math.max(value, 0) : 0;
+    }
+}
@@ -3,10 +3,12 @@ package com.examportal.service;
 import com.examportal.entity.Question;
 import com.examportal.repository.QuestionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -14,13 +16,16 @@ import java.util.List;
 public class QuestionService {
     
     private final QuestionRepository questionRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public List<Question> getQuestionsByExamId(Long examId) {
         return questionRepository.findByExam_Id(examId);
     }
     
     public Question createQuestion(Question question) {
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        eventPublisher.publishEvent(new QuestionChangedEvent(saved.getExamId(), saved.getId(), false));
+        return saved;
     }
     
     public long countQuestionsByExamId(Long examId) {
@@ -28,6 +33,8 @@ public class QuestionService {
     }
     
     public void deleteQuestion(Long questionId) {
+        questionRepository.findExamIdByQuestionId(questionId)
+                .ifPresent(examId -> eventPublisher.publishEvent(new QuestionChangedEvent(examId, questionId, true)));
         questionRepository.deleteById(questionId);
     }
     
@@ -35,6 +42,10 @@ public class QuestionService {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         
+        // Stored isCorrect and obtainedMarks have to be regraded when either of these changes
+        boolean answerKeyChanged = !Objects.equals(question.getCorrectAnswer(), questionDetails.getCorrectAnswer())
+                || !Objects.equals(question.getMarks(), questionDetails.getMarks());
+        
         question.setQuestionText(questionDetails.getQuestionText());
         question.setOptionA(questionDetails.getOptionA());
         question.setOptionB(questionDetails.getOptionB());
@@ -44,7 +55,9 @@ public class QuestionService {
         question.setMarks(questionDetails.getMarks());
         question.setDifficultyLevel(questionDetails.getDifficultyLevel());
         
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        eventPublisher.publishEvent(new QuestionChangedEvent(saved.getExamId(), questionId, answerKeyChanged));
+        return saved;
     }
     
     public long countAllQuestions() {
@@ -0,0 +1,110 @@
+package com.examportal.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of one regrade run, updated by the worker threads and read by the status endpoint
+public class RegradeJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long examId;
+    private final Long questionId;
+    private final LocalDateTime queuedAt = LocalDateTime.now();
+    private volatile int totalChunks;
+    private volatile LocalDateTime startedAt;
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private final AtomicLong answersUpdated = new AtomicLong();
+    private final AtomicLong sessionsUpdated = new AtomicLong();
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public RegradeJob(Long examId, Long questionId) {
+        this.examId = examId;
+        this.questionId = questionId;
+    }
+
+    // Called once the exam's sessions have been split into chunks
+    void start(int totalChunks) {
+        this.totalChunks = totalChunks;
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void chunkCompleted(int answers, int sessions) {
+        answersUpdated.addAndGet(answers);
+        sessionsUpdated.addAndGet(sessions);
+        completedChunks.incrementAndGet();
+    }
+
+    void finish(Throwable failure) {
+        if (failure != null) {
+            error = failure.getMessage();
+            status = Status.FAILED;
+        } else {
+            status = Status.COMPLETED;
+        }
+        finishedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getCompletedChunks() {
+        return completedChunks.get();
+    }
+
+    public double getProgress() {
+        if (status == Status.QUEUED) {
+            return 0.0;
+        }
+        return totalChunks == 0 ? 100.0 : Math.round(completedChunks.get() * 1000.0 / totalChunks) / 10.0;
+    }
+
+    public long getAnswersUpdated() {
+        return answersUpdated.get();
+    }
+
+    public long getSessionsUpdated() {
+        return sessionsUpdated.get();
+    }
+
+    public LocalDateTime getQueuedAt() {
+        return queuedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,182 @@
+package com.examportal.service;
+
+import com.examportal.repository.ExamSessionJdbcRepository;
+import com.examportal.repository.QuestionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Recomputes stored grades of an exam after its answer key changes. The exam's completed sessions are
+// paged in id order into chunks, and each chunk is regraded in its own transaction on a worker thread:
+// one set-based UPDATE of is_correct, then marks and answer vectors scored against the new key.
+// Jobs of one exam run one after another, each reading the key when it starts, so a chunk graded with
+// an older key can never commit after the same chunk of a newer job.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RegradeService {
+
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private final ExamSessionJdbcRepository examSessionJdbcRepository;
+    private final QuestionRepository questionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AnswerVectorService answerVectorService;
+    private final ResultSnapshotService resultSnapshotService;
+    private final ExamAnalyticsService examAnalyticsService;
+    private final LeaderboardService leaderboardService;
+    private final ActivityFeed activityFeed;
+
+    @Value("${exam.regrade.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${exam.regrade.threads:4}")
+    private int threads;
+
+    private ExecutorService workers;
+    // Last job queued per exam; guarded by itself
+    private final Map<Long, CompletableFuture<Void>> lastJobs = new HashMap<>();
+    private final Map<String, RegradeJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RegradeJob> eldest) {
+            return size() > MAX_RETAINED_JOBS;
+        }
+    };
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "regrade-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+
+    @TransactionalEventListener
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        if (event.answerKeyChanged()) {
+            startRegrade(event.examId(), event.questionId());
+        }
+    }
+
+    // Regrades every session of the exam; when questionId is set only that question's answers are re-checked.
+    // Returns at once: the job is queued behind any earlier job of the same exam.
+    public RegradeJob startRegrade(Long examId, Long questionId) {
+        RegradeJob job = new RegradeJob(examId, questionId);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+
+        synchronized (lastJobs) {
+            CompletableFuture<Void> previous = lastJobs.getOrDefault(examId, CompletableFuture.completedFuture(null));
+            CompletableFuture<Void> next = previous
+                    .handle((ignored, failure) -> null)
+                    .thenComposeAsync(ignored -> run(job), workers);
+            lastJobs.put(examId, next);
+            next.whenComplete((ignored, failure) -> {
+                synchronized (lastJobs) {
+                    lastJobs.remove(examId, next);
+                }
+            });
+        }
+        return job;
+    }
+
+    // Runs on a worker thread; the returned future completes when every chunk has
+    private CompletableFuture<Void> run(RegradeJob job) {
+        Long examId = job.getExamId();
+        GradingKey key;
+        List<long[]> chunks;
+        try {
+            // Read straight from the table: the cached key may not have been invalidated yet
+            key = GradingKey.fromRows(questionRepository.findGradingKeyRowsByExamId(examId));
+            chunks = chunksOf(examId);
+        } catch (RuntimeException e) {
+            job.finish(e);
+            log.error("Regrade {} of exam {} failed: {}", job.getId(), examId, e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        job.start(chunks.size());
+
+        CompletableFuture<?>[] futures = chunks.stream()
+                .map(chunk -> CompletableFuture.runAsync(() -> regradeChunk(job, key, chunk[0], chunk[1]), workers))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).handle((ignored, failure) -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            job.finish(cause);
+            if (cause != null) {
+                log.error("Regrade {} of exam {} failed: {}", job.getId(), examId, cause.getMessage());
+            } else {
+                log.info("Regrade {} of exam {} finished: {} sessions, {} answers", job.getId(), examId,
+                        job.getSessionsUpdated(), job.getAnswersUpdated());
+                examAnalyticsService.rebuildExam(examId);
+                leaderboardService.reloadExam(examId);
+                activityFeed.seed();
+            }
+            return null;
+        });
+    }
+
+    // [first, last] session id of each chunk; each spans exactly chunkSize of the exam's sessions, whatever
+    // other exams' ids fall between
+    private List<long[]> chunksOf(Long examId) {
+        List<long[]> chunks = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<Long> sessionIds = examSessionJdbcRepository.findCompletedSessionIdPage(examId, afterId, chunkSize);
+            if (sessionIds.isEmpty()) {
+                break;
+            }
+            afterId = sessionIds.get(sessionIds.size() - 1);
+            chunks.add(new long[]{sessionIds.get(0), afterId});
+            if (sessionIds.size() < chunkSize) {
+                break;
+            }
+        }
+        return chunks;
+    }
+
+    public RegradeJob getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    public List<RegradeJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    private void regradeChunk(RegradeJob job, GradingKey key, long fromSessionId, long toSessionId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int answers = examSessionJdbcRepository.regradeAnswers(job.getExamId(), job.getQuestionId(), fromSessionId, toSessionId);
+            int sessions = answerVectorService.regradeRange(job.getExamId(), key, fromSessionId, toSessionId);
+            // Result documents are rebuilt on their next read
+            resultSnapshotService.invalidateRange(job.getExamId(), fromSessionId, toSessionId);
+            job.chunkCompleted(answers, sessions);
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.examportal.service;
+
+import com.examportal.entity.Exam;
+import com.examportal.entity.ExamResultSnapshot;
+import com.examportal.entity.ExamSession;
+import com.examportal.entity.Student;
+import com.examportal.repository.ExamResultSnapshotRepository;
+import com.examportal.repository.ExamSessionRepository;
+import com.examportal.repository.QuestionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Builds the result document of a completed session (header, summary and per-question outcome) and
+// keeps it gzipped in exam_result_documents, so the result detail endpoints are one primary-key read.
+// Built once grading has committed, outside its transaction; sessions graded before snapshots existed,
+// regraded since, or whose build failed get theirs built on first read.
+@Service
+@Slf4j
+public class ResultSnapshotService {
+
+    private final ExamResultSnapshotRepository snapshotRepository;
+    private final ExamSessionRepository examSessionRepository;
+    private final QuestionRepository questionRepository;
+    private final AnswerVectorService answerVectorService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
+
+    public ResultSnapshotService(ExamResultSnapshotRepository snapshotRepository,
+                                 ExamSessionRepository examSessionRepository,
+                                 QuestionRepository questionRepository,
+                                 AnswerVectorService answerVectorService,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.snapshotRepository = snapshotRepository;
+        this.examSessionRepository = examSessionRepository;
+        this.questionRepository = questionRepository;
+        this.answerVectorService = answerVectorService;
+        this.objectMapper = objectMapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCompleted(ExamSessionCompletedEvent event) {
+        try {
+            findGzipped(event.sessionId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to build the result document of session {}; it is built on first read: {}",
+                    event.sessionId(), e.getMessage());
+        }
+    }
+
+    // Gzipped JSON document of a completed session; empty while the session is not completed yet
+    public Optional<byte[]> findGzipped(Long sessionId) {
+        Optional<ExamResultSnapshot> stored = snapshotRepository.findById(sessionId);
+        if (stored.isPresent()) {
+            return stored.map(ExamResultSnapshot::getDocument);
+        }
+
+        // Built and stored under a shared lock on the session row. A regrade chunk updates the row and drops
+        // its document in one transaction, so it either commits first and this build reads its marks, or
+        // waits until this document is stored and then drops it.
+        try {
+            return newTransaction.execute(status -> {
+                ExamSession session = examSessionRepository.findByIdForShare(sessionId)
+                        .orElseThrow(() -> new RuntimeException("Exam session not found"));
+                if (session.getStatus() != ExamSession.Status.COMPLETED) {
+                    return Optional.<byte[]>empty();
+                }
+                byte[] gzipped = buildDocument(session, answerVectorService.vectorOf(session));
+                snapshotRepository.saveAndFlush(toSnapshot(session, gzipped));
+                return Optional.of(gzipped);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent first read stored the document
+            return snapshotRepository.findById(sessionId).map(ExamResultSnapshot::getDocument);
+        }
+    }
+
+    // Regrades change marks, so the affected documents are dropped and rebuilt on their next read
+    public int invalidateRange(Long examId, long fromSessionId, long toSessionId) {
+        return snapshotRepository.deleteByExamIdAndSessionRange(examId, fromSessionId, toSessionId);
+    }
+
+    public static byte[] gunzip(byte[] gzipped) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] buildDocument(ExamSession session, AnswerVector vector) {
+        Exam exam = session.getExam();
+        Student student = session.getStudent();
+        // Only the drawn questions' text is read on pooled exams; no Question entity is loaded
+        long[] drawn = QuestionPoolIndex.decode(session.getQuestionIds());
+        List<Object[]> questions = drawn != null
+                ? questionRepository.findResultRowsByExamIdAndIds(exam.getId(), Arrays.stream(drawn).boxed().toList())
+                : questionRepository.findResultRowsByExamId(exam.getId());
+
+        int obtainedMarks = session.getObtainedMarks() != null ? session.getObtainedMarks() : 0;
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("sessionId", session.getId());
+        document.put("examId", exam.getId());
+        document.put("examTitle", exam.getTitle());
+        document.put("studentId", student.getId());
+        document.put("studentName", student.getFullName());
+        document.put("studentEmail", student.getEmail());
+        document.put("obtainedMarks", obtainedMarks);
+        document.put("totalMarks", exam.getTotalMarks());
+        document.put("passingMarks", exam.getPassingMarks());
+        document.put("percentage", Math.round((double) obtainedMarks / exam.getTotalMarks() * 100 * 10.0) / 10.0);
+        document.put("status", obtainedMarks >= exam.getPassingMarks() ? "PASSED" : "FAILED");
+        document.put("startTime", session.getStartTime());
+        document.put("endTime", session.getEndTime());
+        document.put("duration", exam.getDurationMinutes());
+
+        int answered = 0;
+        int correct = 0;
+        List<Map<String, Object>> questionAnalysis = new ArrayList<>(questions.size());
+        for (Object[] question : questions) {
+            Long questionId = (Long) question[0];
+            Integer marks = (Integer) question[7];
+            int index = vector.indexOf(questionId);
+            String selectedAnswer = index >= 0 ? vector.selectedAnswer(index) : null;
+            boolean isCorrect = index >= 0 && vector.isCorrect(index);
+            answered += selectedAnswer != null ? 1 : 0;
+            correct += isCorrect ? 1 : 0;
+
+            Map<String, Object> outcome = new LinkedHashMap<>();
+            outcome.put("questionId", questionId);
+            outcome.put("questionText", question[1]);
+            outcome.put("optionA", question[2]);
+            outcome.put("optionB", question[3]);
+            outcome.put("optionC", question[4]);
+            outcome.put("optionD", question[5]);
+            outcome.put("correctAnswer", question[6]);
+            outcome.put("marks", marks);
+            outcome.put("selectedAnswer", selectedAnswer);
+            outcome.put("isCorrect", isCorrect);
+            outcome.put("marksObtained", isCorrect ? marks : 0);
+            questionAnalysis.add(outcome);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("questions", questions.size());
+        summary.put("answered", answered);
+        summary.put("correct", correct);
+        summary.put("incorrect", answered - correct);
+        summary.put("unanswered", questions.size() - answered);
+        document.put("summary", summary);
+        document.put("questionAnalysis", questionAnalysis);
+        document.put("generatedAt", LocalDateTime.now());
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(document);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            return compressed.toByteArray();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize result document", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ExamResultSnapshot toSnapshot(ExamSession session, byte[] gzipped) {
+        ExamResultSnapshot snapshot = new ExamResultSnapshot();
+        snapshot.setExamSessionId(session.getId());
+        snapshot.setExamId(session.getExam().getId());
+        snapshot.setStudentId(session.getStudent().getId());
+        snapshot.setDocument(gzipped);
+        return snapshot;
+    }
+}
@@ -0,0 +1,83 @@
+package com.examportal.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Fixed-bucket histogram of percentage scores with 0.1% resolution (1001 buckets, 0.0 to 100.0).
+// Histograms of different exams share the same buckets, so merging is a bucket-wise sum and
+// category or global views never have to go back to exam_sessions. Percentiles are exact to 0.1%.
+public final class ScoreHistogram {
+
+    public static final int BUCKETS = 1001;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+
+    // Buckets are ROUND(obtained_marks * 1000.0 / total_marks), computed by ExamAnalyticsJdbcRepository
+    public void add(int bucket, long count) {
+        bucket = Math.max(0, Math.min(BUCKETS - 1, bucket));
+        counts[bucket] += count;
+        total += count;
+    }
+
+    public ScoreHistogram merge(ScoreHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        return this;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Nearest-rank percentile (0-100) as a percentage score; null when empty
+    public Double percentile(double p) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i / 10.0;
+            }
+        }
+        return 100.0;
+    }
+
+    public Double mean() {
+        if (total == 0) {
+            return null;
+        }
+        double sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += counts[i] * (double) i;
+        }
+        return Math.round(sum / total) / 10.0;
+    }
+
+    // Bins of binWidth percent (the last one also takes 100%), for charting
+    public List<Map<String, Object>> bins(double binWidth) {
+        int width = Math.max(1, (int) Math.round(binWidth * 10));
+        List<Map<String, Object>> bins = new ArrayList<>();
+        for (int from = 0; from < BUCKETS - 1; from += width) {
+            int to = Math.min(from + width, BUCKETS - 1);
+            int end = to == BUCKETS - 1 ? BUCKETS : to;
+            long count = 0;
+            for (int i = from; i < end; i++) {
+                count += counts[i];
+            }
+            Map<String, Object> bin = new LinkedHashMap<>();
+            bin.put("from", from / 10.0);
+            bin.put("to", to / 10.0);
+            bin.put("count", count);
+            bins.add(bin);
+        }
+        return bins;
+    }
+}
@@ -0,0 +1,165 @@
+package com.examportal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Off-heap answer vectors for active sessions, and the only in-memory copy of their answers: 4 bits per
+// question, the answer (0 = unanswered, 1-4 = A-D) plus a dirty bit set until AnswerBuffer has written it,
+// packed into fixed-size slots of direct ByteBuffer chunks. Slots come in power-of-two size classes
+// and freed slots are reused through a per-class free list, so a sitting allocates nothing on the heap
+// per answer and the arena stops growing once it reaches the peak number of concurrent sessions.
+//
+// A handle is (size class << 32 | slot). Callers serialize access to one handle themselves.
+@Component
+public class SessionAnswerArena {
+
+    public static final long NO_HANDLE = -1;
+
+    private static final int MIN_SLOT_BYTES = 8;
+    private static final int SIZE_CLASSES = 10; // 8 bytes (16 questions) to 4 KB (8192 questions)
+    private static final int ANSWER_MASK = 0b0111;
+    private static final int DIRTY = 0b1000;
+    private static final String OPTIONS = "ABCD";
+
+    private final int chunkBytes;
+    private final long maxBytes;
+    private final SizeClass[] sizeClasses = new SizeClass[SIZE_CLASSES];
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    public SessionAnswerArena(@Value("${exam.answer-arena.chunk-bytes:1048576}") int chunkBytes,
+                              @Value("${exam.answer-arena.max-bytes:268435456}") long maxBytes) {
+        this.chunkBytes = Math.max(chunkBytes, MIN_SLOT_BYTES << (SIZE_CLASSES - 1));
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            sizeClasses[i] = new SizeClass(MIN_SLOT_BYTES << i);
+        }
+    }
+
+    private final class SizeClass {
+        final int slotBytes;
+        final int slotsPerChunk;
+        // Replaced (never mutated) on growth, so readers need no lock
+        volatile ByteBuffer[] chunks = new ByteBuffer[0];
+        int[] free = new int[16];
+        int freeCount;
+        int nextSlot;
+        int inUse;
+
+        SizeClass(int slotBytes) {
+            this.slotBytes = slotBytes;
+            this.slotsPerChunk = chunkBytes / slotBytes;
+        }
+
+        synchronized int allocate() {
+            int slot;
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+            } else {
+                if (nextSlot == chunks.length * slotsPerChunk) {
+                    if (reservedBytes.addAndGet(chunkBytes) > maxBytes) {
+                        reservedBytes.addAndGet(-chunkBytes);
+                        throw new RuntimeException("Answer store is full, please retry later");
+                    }
+                    ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                    grown[chunks.length] = ByteBuffer.allocateDirect(chunkBytes);
+                    chunks = grown;
+                }
+                slot = nextSlot++;
+            }
+            inUse++;
+            return slot;
+        }
+
+        synchronized void release(int slot) {
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = slot;
+            inUse--;
+        }
+
+        ByteBuffer chunk(int slot) {
+            return chunks[slot / slotsPerChunk];
+        }
+
+        int offset(int slot) {
+            return (slot % slotsPerChunk) * slotBytes;
+        }
+    }
+
+    // Allocates a zeroed (all unanswered) vector for the given number of questions
+    public long allocate(int questionCount) {
+        int bytes = Math.max(1, (questionCount + 1) / 2);
+        int sizeClass = 0;
+        while (sizeClass < SIZE_CLASSES && (MIN_SLOT_BYTES << sizeClass) < bytes) {
+            sizeClass++;
+        }
+        if (sizeClass == SIZE_CLASSES) {
+            throw new RuntimeException("Exam has too many questions for the answer store: " + questionCount);
+        }
+
+        SizeClass target = sizeClasses[sizeClass];
+        int slot = target.allocate();
+        ByteBuffer chunk = target.chunk(slot);
+        int offset = target.offset(slot);
+        for (int i = 0; i < target.slotBytes; i += 8) {
+            chunk.putLong(offset + i, 0L);
+        }
+        return ((long) sizeClass << 32) | slot;
+    }
+
+    public void free(long handle) {
+        if (handle != NO_HANDLE) {
+            sizeClasses[(int) (handle >>> 32)].release((int) handle);
+        }
+    }
+
+    // 0 when unanswered, otherwise 1-4 for A-D
+    public int get(long handle, int index) {
+        return entry(handle, index) & ANSWER_MASK;
+    }
+
+    // Whether the answer has changed since it was last marked written
+    public boolean isDirty(long handle, int index) {
+        return (entry(handle, index) & DIRTY) != 0;
+    }
+
+    public void set(long handle, int index, int value, boolean dirty) {
+        SizeClass sizeClass = sizeClasses[(int) (handle >>> 32)];
+        int slot = (int) handle;
+        ByteBuffer chunk = sizeClass.chunk(slot);
+        int position = sizeClass.offset(slot) + (index >>> 1);
+        int shift = (index & 1) << 2;
+        int entry = (value & ANSWER_MASK) | (dirty ? DIRTY : 0);
+        chunk.put(position, (byte) ((chunk.get(position) & ~(0xF << shift)) | (entry << shift)));
+    }
+
+    private int entry(long handle, int index) {
+        SizeClass sizeClass = sizeClasses[(int) (handle >>> 32)];
+        int slot = (int) handle;
+        return (sizeClass.chunk(slot).get(sizeClass.offset(slot) + (index >>> 1)) >>> ((index & 1) << 2)) & 0xF;
+    }
+
+    public static int encode(String answer) {
+        return answer != null ? OPTIONS.indexOf(answer.charAt(0)) + 1 : 0;
+    }
+
+    public static String decode(int value) {
+        return value > 0 ? String.valueOf(OPTIONS.charAt(value - 1)) : null;
+    }
+
+    public Map<String, Object> getStats() {
+        long slotsInUse = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            synchronized (sizeClass) {
+                slotsInUse += sizeClass.inUse;
+            }
+        }
+        return Map.of("reservedBytes", reservedBytes.get(), "maxBytes", maxBytes, "vectorsInUse", slotsInUse);
+    }
+}
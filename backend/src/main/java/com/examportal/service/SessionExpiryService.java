@@ -0,0 +1,121 @@
+package com.examportal.service;
+
+import com.examportal.entity.ExamSession;
+import com.examportal.repository.ExamSessionJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Closes IN_PROGRESS sessions once their time is up. Every session's deadline lives in one timing
+// wheel that a single scheduled tick advances. Overdue sessions without answers become EXPIRED and
+// the rest are SUBMITTED and queued for GradingWorker.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionExpiryService {
+
+    private final ExamSessionJdbcRepository examSessionJdbcRepository;
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final AnswerBuffer answerBuffer;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${exam.session-expiry.tick-ms:1000}")
+    private long tickMs;
+
+    // Extra time past the deadline for in-flight answers before the session is closed
+    @Value("${exam.session-expiry.grace-seconds:30}")
+    private long graceSeconds;
+
+    @Value("${exam.session-expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${exam.session-expiry.retry-delay-ms:10000}")
+    private long retryDelayMs;
+
+    private TimingWheel timingWheel;
+
+    @PostConstruct
+    public void init() {
+        timingWheel = new TimingWheel(tickMs, System.currentTimeMillis());
+    }
+
+    // Runs after ActiveSessionRegistry has been rebuilt from the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInProgressSessions() {
+        AtomicInteger scheduled = new AtomicInteger();
+        activeSessionRegistry.forEachActive((sessionId, deadlineMillis) -> {
+            timingWheel.schedule(sessionId, deadlineMillis + graceSeconds * 1000);
+            scheduled.incrementAndGet();
+        });
+        log.info("Scheduled expiry for {} in-progress exam sessions", scheduled.get());
+    }
+
+    public void schedule(ExamSession session) {
+        schedule(session.getId(), session.getStartTime(), session.getExam().getDurationMinutes());
+    }
+
+    public void cancel(Long sessionId) {
+        timingWheel.cancel(sessionId);
+    }
+
+    public LocalDateTime getDeadline(ExamSession session) {
+        return deadlineOf(session.getStartTime(), session.getExam().getDurationMinutes());
+    }
+
+    public boolean isOverdue(ExamSession session) {
+        return LocalDateTime.now().isAfter(getDeadline(session).plusSeconds(graceSeconds));
+    }
+
+    public int getScheduledCount() {
+        return timingWheel.size();
+    }
+
+    @Scheduled(fixedDelayString = "${exam.session-expiry.tick-ms:1000}")
+    public void tick() {
+        List<Long> overdue = timingWheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < overdue.size(); from += batchSize) {
+            List<Long> batch = overdue.subList(from, Math.min(from + batchSize, overdue.size()));
+            try {
+                closeSessions(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to close {} overdue exam sessions, retrying: {}", batch.size(), e.getMessage());
+                long retryAt = System.currentTimeMillis() + retryDelayMs;
+                batch.forEach(sessionId -> timingWheel.schedule(sessionId, retryAt));
+            }
+        }
+    }
+
+    // Closes the given sessions now if they are still IN_PROGRESS; joins the caller's transaction if there is one
+    public void closeSessions(List<Long> sessionIds) {
+        // Answers still buffered only reach the table while the session is IN_PROGRESS, so the sessions are
+        // closed to writes and flushed first; the registry reopens them if the transaction rolls back
+        int[] counts = transactionTemplate.execute(status -> {
+            sessionIds.forEach(activeSessionRegistry::close);
+            sessionIds.forEach(answerBuffer::flush);
+            return examSessionJdbcRepository.closeOverdueSessions(sessionIds, LocalDateTime.now());
+        });
+        if (counts != null && (counts[0] > 0 || counts[1] > 0)) {
+            log.debug("Closed overdue exam sessions: {} expired, {} submitted for grading", counts[0], counts[1]);
+        }
+    }
+
+    private void schedule(Long sessionId, LocalDateTime startTime, Integer durationMinutes) {
+        LocalDateTime closeAt = deadlineOf(startTime, durationMinutes).plusSeconds(graceSeconds);
+        timingWheel.schedule(sessionId, closeAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private static LocalDateTime deadlineOf(LocalDateTime startTime, Integer durationMinutes) {
+        return startTime.plusMinutes(durationMinutes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.examportal.service;
+
+// Per-session question and option order, derived from the session id so nothing has to be stored.
+// Uses SplitMix64 directly rather than java.util randoms, so the order is stable across JVM versions
+// and a student sees the same paper after a restart or on another node.
+public final class SessionShuffle {
+
+    private static final String OPTIONS = "ABCD";
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    public SessionShuffle(long sessionId) {
+        this.seed = mix(sessionId + GOLDEN_GAMMA);
+    }
+
+    // order[i] is the index (in canonical question-id order) of the question shown at position i
+    public int[] questionOrder(int count) {
+        int[] order = identity(count);
+        shuffle(order, seed);
+        return order;
+    }
+
+    // order[d] is the canonical option index shown at display position d; seeded by both the session and
+    // the question id, so each question of each session has its own order
+    public int[] optionOrder(long questionId) {
+        int[] order = identity(OPTIONS.length());
+        shuffle(order, mix(seed ^ mix(questionId)));
+        return order;
+    }
+
+    // Maps an option picked on the shuffled paper back to the stored letter
+    public String toCanonical(long questionId, String displayed) {
+        if (displayed == null) {
+            return null;
+        }
+        return String.valueOf(OPTIONS.charAt(optionOrder(questionId)[optionIndex(displayed)]));
+    }
+
+    public String toDisplayed(long questionId, String canonical) {
+        if (canonical == null) {
+            return null;
+        }
+        int[] order = optionOrder(questionId);
+        int index = optionIndex(canonical);
+        for (int d = 0; d < order.length; d++) {
+            if (order[d] == index) {
+                return String.valueOf(OPTIONS.charAt(d));
+            }
+        }
+        throw new IllegalStateException("Option order is not a permutation");
+    }
+
+    private static int optionIndex(String option) {
+        int index = option.length() == 1 ? OPTIONS.indexOf(option.charAt(0)) : -1;
+        if (index < 0) {
+            throw new RuntimeException("Selected answer must be A, B, C, or D");
+        }
+        return index;
+    }
+
+    private static int[] identity(int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    // Fisher-Yates driven by a SplitMix64 stream
+    private static void shuffle(int[] values, long state) {
+        for (int i = values.length - 1; i > 0; i--) {
+            state += GOLDEN_GAMMA;
+            int j = (int) Math.floorMod(mix(state), (long) (i + 1));
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
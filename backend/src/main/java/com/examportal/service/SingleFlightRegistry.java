@@ -0,0 +1,25 @@
+package com.examportal.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Named SingleFlight instances; services asking for the same name share one, so their loads coalesce together
+@Component
+public class SingleFlightRegistry {
+
+    private final ConcurrentHashMap<String, SingleFlight<?, ?>> flights = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> get(String name) {
+        return (SingleFlight<K, V>) flights.computeIfAbsent(name, SingleFlight::new);
+    }
+
+    public List<SingleFlight.Stats> getStats() {
+        return flights.values().stream()
+                .map(SingleFlight::getStats)
+                .sorted((a, b) -> a.name().compareTo(b.name()))
+                .toList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.examportal.service;
+
+import java.time.LocalDateTime;
+
+// Published by AuthService after a student has registered
+public record StudentRegisteredEvent(Long studentId, String fullName, LocalDateTime createdAt) {
+}
@@ -1,13 +1,21 @@
 package com.examportal.service;
 
+import com.examportal.dto.StudentResultView;
+import com.examportal.dto.SubmissionResult;
 import com.examportal.entity.*;
 import com.examportal.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,29 +28,34 @@ public class StudentService {
     private final ExamSessionRepository examSessionRepository;
     private final QuestionRepository questionRepository;
     private final StudentAnswerRepository studentAnswerRepository;
+    private final AnswerBuffer answerBuffer;
+    private final GradingTaskRepository gradingTaskRepository;
+    private final SessionExpiryService sessionExpiryService;
+    private final QuestionPaperCache questionPaperCache;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final QuestionPoolIndex questionPoolIndex;
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final AvailableExamCache availableExamCache;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     public List<Exam> getAvailableExams() {
         return examRepository.findByIsActiveTrue();
     }
     
+    // Served from the per-student completed-exam bitmap; a miss costs one anti-join query
     public List<Exam> getAvailableExamsForStudent(Long studentId) {
-        // Get all active exams
-        List<Exam> allActiveExams = examRepository.findByIsActiveTrue();
-        
-        // Get completed exam IDs for this student
-        List<ExamSession> completedSessions = examSessionRepository.findByStudentIdAndStatus(studentId, ExamSession.Status.COMPLETED);
-        List<Long> completedExamIds = completedSessions.stream()
-                .map(session -> session.getExam().getId())
-                .toList();
-        
-        // Filter out completed exams
-        return allActiveExams.stream()
-                .filter(exam -> !completedExamIds.contains(exam.getId()))
-                .toList();
+        return availableExamCache.getAvailableExams(studentId);
     }
     
+    // Shared with ExamService.getExamById; detached for the same reason
     public Exam getExamById(Long examId) {
-        return examRepository.findById(examId)
+        return singleFlightRegistry.<Long, Optional<Exam>>get("exam")
+                .execute(examId, () -> examRepository.findWithCategoryById(examId).map(exam -> {
+                    entityManager.detach(exam);
+                    return exam;
+                }))
                 .orElseThrow(() -> new RuntimeException("Exam not found"));
     }
     
@@ -60,7 +73,12 @@ public class StudentService {
             // or creating a new session if the previous one was completed
             ExamSession existing = existingSession.get();
             if (existing.getStatus() == ExamSession.Status.IN_PROGRESS) {
-                return existing; // Return existing in-progress session
+                if (!sessionExpiryService.isOverdue(existing)) {
+                    activeSessionRegistry.register(existing);
+                    return existing; // Return existing in-progress session
+                }
+                // Time ran out but the timer has not fired yet: close it now instead of resuming it
+                sessionExpiryService.closeSessions(List.of(existing.getId()));
             }
             // If completed, allow retaking by continuing to create new session
         }
@@ -70,8 +88,14 @@ public class StudentService {
         session.setExam(exam);
         session.setStartTime(LocalDateTime.now());
         session.setStatus(ExamSession.Status.IN_PROGRESS);
+        if (exam.isPooled()) {
+            session.setQuestionIds(QuestionPoolIndex.encode(questionPoolIndex.draw(exam)));
+        }
         
-        return examSessionRepository.save(session);
+        ExamSession saved = examSessionRepository.save(session);
+        activeSessionRegistry.register(saved);
+        sessionExpiryService.schedule(saved);
+        return saved;
     }
     
     public ExamSession getExamSession(Long sessionId) {
@@ -79,76 +103,166 @@ public class StudentService {
                 .orElseThrow(() -> new RuntimeException("Exam session not found"));
     }
     
+    // Coalesced like getExamById; the questions are detached and shared read-only, so callers must not modify them
     public List<Question> getExamQuestions(Long examId) {
-        return questionRepository.findByExamIdOrderById(examId);
+        return singleFlightRegistry.<Long, List<Question>>get("exam-questions")
+                .execute(examId, () -> {
+                    List<Question> questions = questionRepository.findByExamIdOrderById(examId);
+                    questions.forEach(entityManager::detach);
+                    return List.copyOf(questions);
+                });
     }
     
-    public StudentAnswer submitAnswer(Long sessionId, Long questionId, String selectedAnswer) {
-        ExamSession session = examSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Exam session not found"));
-        
-        Question question = questionRepository.findById(questionId)
-                .orElseThrow(() -> new RuntimeException("Question not found"));
-        
-        // Check if answer already exists
-        Optional<StudentAnswer> existingAnswer = studentAnswerRepository
-                .findByExamSessionAndQuestion(session, question);
+    // Student-facing questions, pre-serialized without correct answers
+    @Transactional(readOnly = true)
+    public QuestionPaperCache.QuestionPaper getQuestionPaper(Long examId) {
+        return questionPaperCache.get(examId);
+    }
+    
+    // Answers picked on a shuffled paper (GET /exam-sessions/{id}/questions) are mapped back to canonical A-D first
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean submitAnswer(Long sessionId, Long studentId, Long questionId, String selectedAnswer, boolean shuffled,
+                                long clientSeq) {
+        return submitAnswer(sessionId, studentId, questionId,
+                shuffled ? toCanonicalAnswer(sessionId, questionId, selectedAnswer) : selectedAnswer, clientSeq);
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String toCanonicalAnswer(Long sessionId, Long questionId, String displayedAnswer) {
+        return new SessionShuffle(sessionId).toCanonical(questionId, displayedAnswer);
+    }
+    
+    // Checked against the active session registry, which stages it in the answer buffer, and journaled before
+    // it is acknowledged; the buffer writes it to student_answers in batches. studentId is null when the caller is not authenticated.
+    // Returns false when clientSeq shows the write is stale; it is then dropped before the buffer.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean submitAnswer(Long sessionId, Long studentId, Long questionId, String selectedAnswer, long clientSeq) {
+        if (selectedAnswer != null && !selectedAnswer.matches("[ABCD]")) {
+            throw new RuntimeException("Selected answer must be A, B, C, or D");
+        }
         
-        StudentAnswer answer;
-        if (existingAnswer.isPresent()) {
-            answer = existingAnswer.get();
-            answer.setSelectedAnswer(selectedAnswer);
-        } else {
-            answer = new StudentAnswer();
-            answer.setExamSession(session);
-            answer.setQuestion(question);
-            answer.setSelectedAnswer(selectedAnswer);
+        if (!activeSessionRegistry.recordAnswer(sessionId, studentId, questionId, selectedAnswer, clientSeq)) {
+            return false;
+        }
+        answerBuffer.append(sessionId, questionId, selectedAnswer);
+        return true;
+    }
+    
+    // Resync path for reconnecting clients: merged with anything still buffered and written as one batch upsert.
+    // clientSeqs holds the sequence number of each answer that carried one; stale answers are skipped.
+    // The session row stays locked until the upsert commits, so the returned count is what was written:
+    // a session that is not IN_PROGRESS is rejected instead of having its answers silently dropped.
+    public int submitAnswers(Long sessionId, Long studentId, Map<Long, String> answers, Map<Long, Long> clientSeqs) {
+        for (String selectedAnswer : answers.values()) {
+            if (selectedAnswer != null && !selectedAnswer.matches("[ABCD]")) {
+                throw new RuntimeException("Selected answer must be A, B, C, or D");
+            }
+        }
+        ExamSession session = examSessionRepository.findByIdForUpdate(sessionId)
+                .orElseThrow(() -> new RuntimeException("Exam session not found"));
+        if (session.getStatus() != ExamSession.Status.IN_PROGRESS) {
+            throw new RuntimeException("Exam session is not in progress");
         }
         
-        // Check if answer is correct
-        answer.setIsCorrect(selectedAnswer != null && selectedAnswer.equals(question.getCorrectAnswer()));
+        Map<Long, String> accepted = new HashMap<>();
+        answers.forEach((questionId, selectedAnswer) -> {
+            long clientSeq = clientSeqs.getOrDefault(questionId, ActiveSessionRegistry.NO_CLIENT_SEQ);
+            if (activeSessionRegistry.recordAnswer(sessionId, studentId, questionId, selectedAnswer, clientSeq)) {
+                accepted.put(questionId, selectedAnswer);
+            }
+        });
         
-        return studentAnswerRepository.save(answer);
+        answerBuffer.appendAll(sessionId, accepted);
+        answerBuffer.flush(sessionId);
+        return accepted.size();
     }
     
+    // Only marks the session SUBMITTED and queues it; GradingWorker moves it to COMPLETED
     public ExamSession submitExam(Long sessionId) {
-        ExamSession session = examSessionRepository.findById(sessionId)
+        ExamSession session = examSessionRepository.findByIdForUpdate(sessionId)
                 .orElseThrow(() -> new RuntimeException("Exam session not found"));
         
-        session.setEndTime(LocalDateTime.now());
-        session.setStatus(ExamSession.Status.COMPLETED);
+        // A repeated submit is a no-op, so client retries never enqueue a session twice
+        if (session.getStatus() != ExamSession.Status.IN_PROGRESS) {
+            return session;
+        }
         
-        // Calculate marks properly
-        List<Question> examQuestions = questionRepository.findByExam_Id(session.getExam().getId());
-        List<StudentAnswer> studentAnswers = studentAnswerRepository.findByExamSessionId(sessionId);
+        // Close first so no answer is accepted after the flush; every acknowledged answer is then in the
+        // table before grading reads it. Both are undone if this transaction rolls back.
+        activeSessionRegistry.close(sessionId);
+        answerBuffer.flush(sessionId);
         
-        int obtainedMarks = 0;
+        session.setEndTime(LocalDateTime.now());
+        session.setStatus(ExamSession.Status.SUBMITTED);
+        examSessionRepository.save(session);
         
-        // Calculate marks based on correct answers and their individual question marks
-        for (StudentAnswer answer : studentAnswers) {
-            if (answer.getIsCorrect() != null && answer.getIsCorrect()) {
-                obtainedMarks += answer.getQuestion().getMarks();
-            }
-        }
+        GradingTask task = new GradingTask();
+        task.setExamSessionId(sessionId);
+        task.setAvailableAt(LocalDateTime.now());
+        gradingTaskRepository.save(task);
+        sessionExpiryService.cancel(sessionId);
+        availableExamCache.invalidateStudent(session.getStudent().getId());
         
-        // Ensure obtained marks don't exceed total marks
-        int totalMarks = examQuestions.stream().mapToInt(Question::getMarks).sum();
-        obtainedMarks = Math.min(obtainedMarks, totalMarks);
+        return session;
+    }
+    
+    // Current answers (questionId -> A-D) of an active session, read from memory; null once it is closed.
+    // shuffled maps each answer to the letter it has on the session's shuffled paper.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<Long, String> getAnswerSheet(Long sessionId, boolean shuffled) {
+        Map<Long, String> answers = activeSessionRegistry.getAnswers(sessionId);
+        if (answers == null || !shuffled) {
+            return answers;
+        }
+        SessionShuffle shuffle = new SessionShuffle(sessionId);
+        answers.replaceAll(shuffle::toDisplayed);
+        return answers;
+    }
+    
+    // Answered questions of an active session as tracked in memory, or -1 once it is closed
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int getAnsweredCount(Long sessionId) {
+        return activeSessionRegistry.getAnsweredCount(sessionId);
+    }
+    
+    // Server-side end of the exam; clients should count down against this rather than their own clock
+    @Transactional(readOnly = true)
+    public LocalDateTime getSessionDeadline(ExamSession session) {
+        return sessionExpiryService.getDeadline(session);
+    }
+    
+    @Transactional(readOnly = true)
+    public SubmissionResult getSubmissionResult(Long sessionId) {
+        ExamSession session = examSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Exam session not found"));
+        Exam exam = session.getExam();
         
-        session.setObtainedMarks(obtainedMarks);
+        if (session.getStatus() != ExamSession.Status.COMPLETED || session.getObtainedMarks() == null) {
+            return new SubmissionResult(sessionId, session.getStatus().name(), null,
+                    exam.getTotalMarks(), exam.getPassingMarks(), null, null, session.getEndTime());
+        }
         
-        return examSessionRepository.save(session);
+        double percentage = exam.getTotalMarks() > 0
+                ? Math.round((double) session.getObtainedMarks() / exam.getTotalMarks() * 100 * 10.0) / 10.0 : 0.0;
+        return new SubmissionResult(sessionId, session.getStatus().name(), session.getObtainedMarks(),
+                exam.getTotalMarks(), exam.getPassingMarks(), percentage,
+                session.getObtainedMarks() >= exam.getPassingMarks(), session.getEndTime());
     }
     
-    public List<ExamSession> getStudentResults(Long studentId) {
-        // Verify student exists
-        studentRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        
-        return examSessionRepository.findByStudentIdAndStatus(studentId, ExamSession.Status.COMPLETED);
+    // One page of completed results, newest first; beforeId is the last id of the previous page (null for the first)
+    public List<StudentResultView> getStudentResults(Long studentId, Long beforeId, int limit) {
+        return examSessionRepository.findResultViews(studentId, beforeId != null ? beforeId : Long.MAX_VALUE,
+                PageRequest.of(0, limit));
+    }
+    
+    // {completed, passed, average percentage} over the student's whole history
+    public Object[] getResultSummary(Long studentId) {
+        List<Object[]> rows = examSessionRepository.summarizeResults(studentId);
+        return rows.isEmpty() ? new Object[]{0L, 0L, null} : rows.get(0);
     }
     
     public List<StudentAnswer> getExamSessionAnswers(Long sessionId) {
+        answerBuffer.flush(sessionId);
         return studentAnswerRepository.findByExamSessionId(sessionId);
     }
 }
@@ -0,0 +1,149 @@
+package com.examportal.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hierarchical timing wheel keyed by id: four levels of 64 slots, each slot a doubly linked list.
+// Scheduling and cancelling are O(1); a timer is only touched again when its slot is cascaded to a
+// lower level or fires. With 1s ticks the wheels cover 2^24 ticks (~194 days); anything further out
+// waits in an overflow list that is re-examined whenever the top level wraps.
+final class TimingWheel {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int OVERFLOW = LEVELS;
+
+    private final long tickMillis;
+    // Level LEVELS holds the overflow list in slot 0
+    private final Node[][] slots = new Node[LEVELS + 1][SLOTS];
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private long currentTick;
+
+    private static final class Node {
+        final long key;
+        long deadlineTick;
+        int level;
+        int slot;
+        Node prev;
+        Node next;
+
+        Node(long key) {
+            this.key = key;
+        }
+    }
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    // (Re)schedules a key; deadlines already in the past fire on the next tick
+    synchronized void schedule(long key, long deadlineMillis) {
+        Node node = nodes.get(key);
+        if (node != null) {
+            unlink(node);
+        } else {
+            node = new Node(key);
+            nodes.put(key, node);
+        }
+        node.deadlineTick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        place(node);
+    }
+
+    synchronized boolean cancel(long key) {
+        Node node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    synchronized int size() {
+        return nodes.size();
+    }
+
+    // Moves the wheel up to now and returns the keys whose deadline has passed, oldest first
+    synchronized List<Long> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Long> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // A cascaded timer always lands in a lower level slot that is not itself being cascaded on this tick
+            for (int level = 1; level <= LEVELS; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level);
+            }
+
+            int slot = (int) (currentTick & SLOT_MASK);
+            Node node = slots[0][slot];
+            slots[0][slot] = null;
+            while (node != null) {
+                Node next = node.next;
+                nodes.remove(node.key);
+                node.prev = null;
+                node.next = null;
+                expired.add(node.key);
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(int level) {
+        int slot = level == OVERFLOW ? 0 : (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Node node = slots[level][slot];
+        slots[level][slot] = null;
+        while (node != null) {
+            Node next = node.next;
+            node.prev = null;
+            node.next = null;
+            place(node);
+            node = next;
+        }
+    }
+
+    // The level is the lowest one whose higher-order digits match the current tick, so the timer's
+    // slot is reached (and cascaded or fired) no later than its deadline
+    private void place(Node node) {
+        long deadline = node.deadlineTick;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if ((deadline >>> shift) == (currentTick >>> shift)) {
+                link(node, level, (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK));
+                return;
+            }
+        }
+        link(node, OVERFLOW, 0);
+    }
+
+    private void link(Node node, int level, int slot) {
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = slots[level][slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        slots[level][slot] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            slots[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.examportal.service;
+
+// Token bucket in its GCRA form: a single "theoretical arrival time" instead of a refill loop.
+// reserve() always books the next free slot, so callers that are told to wait keep their place.
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long theoreticalArrival = Long.MIN_VALUE;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * Math.max(burst - 1, 0);
+    }
+
+    // Books a permit and returns how long the caller must wait before using it (0 = now),
+    // or -1 without booking anything if that wait would exceed maxWaitNanos
+    synchronized long reserve(long nowNanos, long maxWaitNanos) {
+        long arrival = Math.max(theoreticalArrival, nowNanos - burstNanos);
+        long wait = Math.max(arrival - nowNanos, 0);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        theoreticalArrival = arrival + intervalNanos;
+        return wait;
+    }
+
+    long getIntervalNanos() {
+        return intervalNanos;
+    }
+}
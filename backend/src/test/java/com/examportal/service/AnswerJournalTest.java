@@ -0,0 +1,166 @@
+package com.examportal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Reopening the journal file is what a restart sees, so most cases check the reopened journal.
+class AnswerJournalTest {
+
+    private static final long HEADER_SIZE = 64;
+    private static final long RECORD_SIZE = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unappliedEntriesSurviveReopen() {
+        AnswerJournal journal = open(16);
+        assertTrue(journal.append(1L, 10L, "A"));
+        assertTrue(journal.append(1L, 11L, null));
+        assertTrue(journal.append(2L, 10L, "D"));
+        journal.close();
+
+        assertEquals(List.of(entry(1, 10, "A"), entry(1, 11, null), entry(2, 10, "D")), open(16).unappliedEntries());
+    }
+
+    @Test
+    void fullyAppliedJournalRewinds() {
+        AnswerJournal journal = open(16);
+        for (long question = 1; question <= 5; question++) {
+            journal.append(1L, question, "B");
+        }
+        journal.markApplied(journal.position());
+        assertEquals(HEADER_SIZE, journal.position());
+        assertEquals(List.of(), journal.unappliedEntries());
+        journal.close();
+
+        // The old records are still in the file, but under the previous epoch
+        AnswerJournal reopened = open(16);
+        assertEquals(List.of(), reopened.unappliedEntries());
+        assertEquals(HEADER_SIZE, reopened.position());
+    }
+
+    @Test
+    void wrappedJournalStopsAtRecordsOfThePreviousPass() {
+        AnswerJournal journal = open(4);
+        for (long question = 1; question <= 4; question++) {
+            assertTrue(journal.append(1L, question, "A"));
+        }
+        assertFalse(journal.append(1L, 5L, "A"));
+
+        journal.markApplied(journal.position());
+        assertTrue(journal.append(2L, 20L, "C"));
+        journal.close();
+
+        AnswerJournal reopened = open(4);
+        assertEquals(List.of(entry(2, 20, "C")), reopened.unappliedEntries());
+        assertEquals(HEADER_SIZE + RECORD_SIZE, reopened.position());
+        // Room for three more before it is full again
+        for (long question = 21; question <= 23; question++) {
+            assertTrue(reopened.append(2L, question, "C"));
+        }
+        assertFalse(reopened.append(2L, 24L, "C"));
+    }
+
+    @Test
+    void tailIsCompactedToTheFrontWhenItFits() {
+        AnswerJournal journal = open(8);
+        journal.append(1L, 1L, "A");
+        journal.append(1L, 2L, "B");
+        journal.append(1L, 3L, "C");
+        long applied = journal.position();
+        journal.append(2L, 1L, "D");
+
+        journal.markApplied(applied);
+        assertEquals(HEADER_SIZE + RECORD_SIZE, journal.position());
+        assertEquals(List.of(entry(2, 1, "D")), journal.unappliedEntries());
+        journal.close();
+
+        assertEquals(List.of(entry(2, 1, "D")), open(8).unappliedEntries());
+    }
+
+    @Test
+    void tailLargerThanTheDrainedSpaceStaysInPlace() {
+        AnswerJournal journal = open(8);
+        journal.append(1L, 1L, "A");
+        long applied = journal.position();
+        journal.append(1L, 2L, "B");
+        journal.append(1L, 3L, "C");
+        long end = journal.position();
+
+        journal.markApplied(applied);
+        assertEquals(end, journal.position());
+        journal.close();
+
+        AnswerJournal reopened = open(8);
+        assertEquals(List.of(entry(1, 2, "B"), entry(1, 3, "C")), reopened.unappliedEntries());
+        assertEquals(end, reopened.position());
+    }
+
+    @Test
+    void markAppliedBehindTheAppliedOffsetIsIgnored() {
+        AnswerJournal journal = open(8);
+        journal.append(1L, 1L, "A");
+        journal.append(1L, 2L, "B");
+        journal.markApplied(HEADER_SIZE);
+        assertEquals(2, journal.unappliedEntries().size());
+    }
+
+    @Test
+    void replayStopsAtACorruptRecord() throws IOException {
+        AnswerJournal journal = open(8);
+        journal.append(1L, 1L, "A");
+        journal.append(1L, 2L, "B");
+        journal.append(1L, 3L, "C");
+        journal.close();
+
+        // Flip a bit of the second record's question id, so its CRC no longer matches
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal.dat").toFile(), "rw")) {
+            long offset = HEADER_SIZE + RECORD_SIZE + 8;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 1);
+        }
+
+        assertEquals(List.of(entry(1, 1, "A")), open(8).unappliedEntries());
+    }
+
+    @Test
+    void compactedTailKeepsEntriesJournaledAgain() {
+        // A session whose flush keeps failing is journaled again on every checkpoint
+        AnswerJournal journal = open(4);
+        for (int round = 0; round < 10; round++) {
+            long applied = journal.position();
+            assertTrue(journal.append(7L, 70L, "B"));
+            journal.markApplied(applied);
+        }
+        assertEquals(HEADER_SIZE + RECORD_SIZE, journal.position());
+        journal.close();
+
+        assertEquals(List.of(entry(7, 70, "B")), open(4).unappliedEntries());
+    }
+
+    private AnswerJournal open(int capacity) {
+        AnswerJournal journal = new AnswerJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "path", directory.resolve("journal.dat").toString());
+        ReflectionTestUtils.setField(journal, "capacity", capacity);
+        journal.open();
+        return journal;
+    }
+
+    private static AnswerJournal.Entry entry(long sessionId, long questionId, String selectedAnswer) {
+        return new AnswerJournal.Entry(sessionId, questionId, selectedAnswer);
+    }
+}
@@ -0,0 +1,145 @@
+package com.examportal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerVectorTest {
+
+    private static final String OPTIONS = "ABCD";
+
+    @Test
+    void roundTripKeepsAnswersAndCorrectness() {
+        long[] questionIds = {3, 17, 18, 500, 70_000, 9_000_000_000L};
+        Map<Long, String> answers = new HashMap<>();
+        answers.put(3L, "A");
+        answers.put(18L, "D");
+        answers.put(500L, "C");
+        answers.put(9_000_000_000L, "B");
+
+        AnswerVector vector = roundTrip(AnswerVector.fromAnswers(questionIds, answers, id -> id == 18 || id == 500));
+
+        assertEquals(questionIds.length, vector.size());
+        for (int i = 0; i < questionIds.length; i++) {
+            assertEquals(questionIds[i], vector.questionId(i));
+            assertEquals(i, vector.indexOf(questionIds[i]));
+            assertEquals(answers.get(questionIds[i]), vector.selectedAnswer(i));
+        }
+        assertFalse(vector.isCorrect(0));
+        assertTrue(vector.isCorrect(2));
+        assertTrue(vector.isCorrect(3));
+        assertEquals(4, vector.answeredCount());
+        assertTrue(vector.indexOf(4) < 0);
+    }
+
+    @Test
+    void answersSpanningTwoBytesSurviveTheRoundTrip() {
+        // With 3 bits each, indices 2 and 5 straddle a byte boundary
+        long[] questionIds = {1, 2, 3, 4, 5, 6, 7, 8};
+        Map<Long, String> answers = new HashMap<>();
+        for (long id : questionIds) {
+            answers.put(id, "D");
+        }
+
+        AnswerVector vector = roundTrip(AnswerVector.fromAnswers(questionIds, answers, id -> id % 2 == 1));
+        for (int i = 0; i < questionIds.length; i++) {
+            assertEquals(4, vector.answerValue(i), "index " + i);
+            assertEquals(i % 2 == 0, vector.isCorrect(i), "index " + i);
+        }
+    }
+
+    @Test
+    void randomSheetsRoundTrip() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int count = random.nextInt(300);
+            long[] questionIds = new long[count];
+            long id = random.nextInt(1000);
+            for (int i = 0; i < count; i++) {
+                id += 1 + (random.nextBoolean() ? random.nextInt(10) : random.nextInt(1 << 20));
+                questionIds[i] = id;
+            }
+            Map<Long, String> answers = new HashMap<>();
+            Map<Long, Boolean> correct = new HashMap<>();
+            for (long questionId : questionIds) {
+                if (random.nextInt(4) != 0) {
+                    answers.put(questionId, String.valueOf(OPTIONS.charAt(random.nextInt(4))));
+                    correct.put(questionId, random.nextBoolean());
+                }
+            }
+
+            AnswerVector vector = roundTrip(AnswerVector.fromAnswers(questionIds, answers, correct::get));
+            assertEquals(count, vector.size());
+            assertEquals(answers.size(), vector.answeredCount());
+            for (int i = 0; i < count; i++) {
+                assertEquals(questionIds[i], vector.questionId(i));
+                assertEquals(answers.get(questionIds[i]), vector.selectedAnswer(i));
+                assertEquals(correct.getOrDefault(questionIds[i], false), vector.isCorrect(i));
+            }
+        }
+    }
+
+    @Test
+    void unansweredQuestionsAreNeverCorrect() {
+        AnswerVector vector = AnswerVector.fromAnswers(new long[]{1, 2}, Map.of(2L, "B"), id -> true);
+        assertNull(vector.selectedAnswer(0));
+        assertFalse(vector.isCorrect(0));
+        assertTrue(vector.isCorrect(1));
+    }
+
+    @Test
+    void answersOutsideTheQuestionsAreDropped() {
+        AnswerVector vector = roundTrip(AnswerVector.fromAnswers(new long[]{5}, Map.of(5L, "C", 6L, "A"), id -> false));
+        assertEquals(1, vector.size());
+        assertEquals(1, vector.answeredCount());
+        assertEquals("C", vector.selectedAnswer(0));
+    }
+
+    @Test
+    void emptySheet() {
+        AnswerVector vector = roundTrip(AnswerVector.fromAnswers(new long[0], Map.of(), id -> false));
+        assertEquals(0, vector.size());
+        assertEquals(0, vector.answeredCount());
+    }
+
+    @Test
+    void missingOrShortCorrectnessBitmapReadsAsIncorrect() {
+        long[] questionIds = new long[20];
+        Map<Long, String> answers = new HashMap<>();
+        for (int i = 0; i < questionIds.length; i++) {
+            questionIds[i] = i + 1;
+            answers.put(i + 1L, "A");
+        }
+        AnswerVector graded = AnswerVector.fromAnswers(questionIds, answers, id -> true);
+
+        AnswerVector withoutBitmap = AnswerVector.decode(graded.encodeAnswers(), null);
+        AnswerVector withShortBitmap = AnswerVector.decode(graded.encodeAnswers(),
+                Base64.getEncoder().encodeToString(new byte[]{(byte) 0xFF}));
+        for (int i = 0; i < questionIds.length; i++) {
+            assertFalse(withoutBitmap.isCorrect(i));
+            assertEquals(i < 8, withShortBitmap.isCorrect(i), "index " + i);
+            assertEquals("A", withShortBitmap.selectedAnswer(i));
+        }
+    }
+
+    @Test
+    void decodeRejectsMissingAndUnknownVectors() {
+        assertNull(AnswerVector.decode(null, null));
+        assertNull(AnswerVector.decode("", ""));
+        String unknownVersion = Base64.getEncoder().encodeToString(new byte[]{9, 0});
+        assertThrows(IllegalArgumentException.class, () -> AnswerVector.decode(unknownVersion, null));
+    }
+
+    private static AnswerVector roundTrip(AnswerVector vector) {
+        return AnswerVector.decode(vector.encodeAnswers(), vector.encodeCorrectness());
+    }
+}
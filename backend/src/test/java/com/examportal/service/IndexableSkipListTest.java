@@ -0,0 +1,130 @@
+package com.examportal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks the skip list against a sorted ArrayList: if any span is off, rankOf of some element disagrees
+// with its position in the oracle.
+class IndexableSkipListTest {
+
+    @Test
+    void emptyList() {
+        IndexableSkipList<Integer> list = new IndexableSkipList<>(Comparator.naturalOrder());
+
+        assertEquals(0, list.size());
+        assertEquals(0, list.rankOf(1));
+        assertFalse(list.remove(1));
+        assertEquals(List.of(), list.first(10));
+    }
+
+    @Test
+    void ranksFollowInsertionInAnyOrder() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                values.add(i * 2);
+            }
+            Collections.shuffle(values, new Random(seed));
+
+            IndexableSkipList<Integer> list = new IndexableSkipList<>(Comparator.naturalOrder());
+            List<Integer> oracle = new ArrayList<>();
+            for (Integer value : values) {
+                list.add(value);
+                insertSorted(oracle, value, Comparator.naturalOrder());
+            }
+            assertMatches(oracle, list, Comparator.naturalOrder());
+        }
+    }
+
+    @Test
+    void randomAddsAndRemovesKeepSpansConsistent() {
+        Comparator<Integer> descending = Comparator.reverseOrder();
+        Random random = new Random(42);
+        IndexableSkipList<Integer> list = new IndexableSkipList<>(descending);
+        List<Integer> oracle = new ArrayList<>();
+
+        for (int step = 0; step < 20000; step++) {
+            int value = random.nextInt(2000);
+            boolean present = Collections.binarySearch(oracle, value, descending) >= 0;
+            if (random.nextInt(3) == 0 || present) {
+                assertEquals(present, list.remove(value));
+                oracle.remove(Integer.valueOf(value));
+            } else {
+                list.add(value);
+                insertSorted(oracle, value, descending);
+            }
+
+            assertEquals(oracle.size(), list.size());
+            if (step % 250 == 0) {
+                assertMatches(oracle, list, descending);
+            }
+        }
+        assertMatches(oracle, list, descending);
+    }
+
+    @Test
+    void emptiedListCanBeRefilled() {
+        IndexableSkipList<Integer> list = new IndexableSkipList<>(Comparator.naturalOrder());
+        List<Integer> oracle = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+            oracle.add(i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(list.remove(i));
+            oracle.remove(Integer.valueOf(i));
+        }
+        assertMatches(oracle, list, Comparator.naturalOrder());
+
+        for (int i = 1; i < 1000; i += 2) {
+            assertTrue(list.remove(i));
+        }
+        assertEquals(0, list.size());
+        assertEquals(List.of(), list.first(5));
+
+        list.add(7);
+        list.add(3);
+        assertEquals(List.of(3, 7), list.first(5));
+        assertEquals(2, list.rankOf(7));
+    }
+
+    @Test
+    void firstReturnsPrefixInOrder() {
+        IndexableSkipList<Integer> list = new IndexableSkipList<>(Comparator.naturalOrder());
+        for (int i = 9; i >= 0; i--) {
+            list.add(i);
+        }
+
+        assertEquals(List.of(), list.first(0));
+        assertEquals(List.of(0, 1, 2), list.first(3));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), list.first(50));
+    }
+
+    private static void insertSorted(List<Integer> oracle, Integer value, Comparator<Integer> order) {
+        int index = Collections.binarySearch(oracle, value, order);
+        oracle.add(-index - 1, value);
+    }
+
+    private static void assertMatches(List<Integer> oracle, IndexableSkipList<Integer> list, Comparator<Integer> order) {
+        assertEquals(oracle.size(), list.size());
+        assertEquals(oracle, list.first(oracle.size()));
+        for (int i = 0; i < oracle.size(); i++) {
+            assertEquals(i + 1, list.rankOf(oracle.get(i)), "rank of " + oracle.get(i));
+        }
+        // Values between and around the elements are absent
+        for (int probe = -1; probe <= 2001; probe++) {
+            if (Collections.binarySearch(oracle, probe, order) < 0) {
+                assertEquals(0, list.rankOf(probe), "rank of absent " + probe);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.examportal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionAnswerArenaTest {
+
+    private static final int CHUNK_BYTES = 4096;
+    // Questions in the largest (4 KB) size class
+    private static final int MAX_QUESTIONS = 8192;
+
+    @Test
+    void entriesOfNeighbouringQuestionsAreIndependent() {
+        SessionAnswerArena arena = new SessionAnswerArena(CHUNK_BYTES, 1 << 20);
+        long handle = arena.allocate(3);
+
+        // 0 and 1 share a byte; 1 is the high nibble
+        arena.set(handle, 1, 4, true);
+        assertEquals(0, arena.get(handle, 0));
+        assertFalse(arena.isDirty(handle, 0));
+        assertEquals(4, arena.get(handle, 1));
+        assertTrue(arena.isDirty(handle, 1));
+
+        arena.set(handle, 0, 3, false);
+        arena.set(handle, 2, 1, true);
+        assertEquals(3, arena.get(handle, 0));
+        assertFalse(arena.isDirty(handle, 0));
+        assertEquals(4, arena.get(handle, 1));
+        assertTrue(arena.isDirty(handle, 1));
+        assertEquals(1, arena.get(handle, 2));
+
+        // Clearing the dirty bit keeps the answer
+        arena.set(handle, 1, arena.get(handle, 1), false);
+        assertEquals(4, arena.get(handle, 1));
+        assertFalse(arena.isDirty(handle, 1));
+    }
+
+    @Test
+    void randomWritesMatchAnArrayInEverySizeClass() {
+        SessionAnswerArena arena = new SessionAnswerArena(CHUNK_BYTES, 1 << 20);
+        Random random = new Random(3);
+        for (int questions : new int[]{1, 15, 16, 17, 33, 100, 1001, MAX_QUESTIONS}) {
+            long handle = arena.allocate(questions);
+            int[] values = new int[questions];
+            boolean[] dirty = new boolean[questions];
+            for (int i = 0; i < questions * 4; i++) {
+                int index = random.nextInt(questions);
+                values[index] = random.nextInt(5);
+                dirty[index] = random.nextBoolean();
+                arena.set(handle, index, values[index], dirty[index]);
+            }
+            for (int i = 0; i < questions; i++) {
+                assertEquals(values[i], arena.get(handle, i), questions + " questions, index " + i);
+                assertEquals(dirty[i], arena.isDirty(handle, i), questions + " questions, index " + i);
+            }
+        }
+    }
+
+    @Test
+    void vectorsNextToEachOtherDoNotOverlap() {
+        SessionAnswerArena arena = new SessionAnswerArena(CHUNK_BYTES, 1 << 20);
+        // Both fill their 8-byte slot exactly
+        long first = arena.allocate(16);
+        long second = arena.allocate(16);
+        for (int i = 0; i < 16; i++) {
+            arena.set(first, i, 4, true);
+        }
+        for (int i = 0; i < 16; i++) {
+            assertEquals(0, arena.get(second, i));
+            assertFalse(arena.isDirty(second, i));
+        }
+    }
+
+    @Test
+    void largestSizeClassIsTheLimit() {
+        SessionAnswerArena arena = new SessionAnswerArena(CHUNK_BYTES, 1 << 20);
+        long handle = arena.allocate(MAX_QUESTIONS);
+        arena.set(handle, MAX_QUESTIONS - 1, 2, true);
+        assertEquals(2, arena.get(handle, MAX_QUESTIONS - 1));
+        assertTrue(arena.isDirty(handle, MAX_QUESTIONS - 1));
+
+        assertThrows(RuntimeException.class, () -> arena.allocate(MAX_QUESTIONS + 1));
+    }
+
+    @Test
+    void freedSlotIsReusedAndZeroed() {
+        SessionAnswerArena arena = new SessionAnswerArena(CHUNK_BYTES, 1 << 20);
+        long handle = arena.allocate(40);
+        for (int i = 0; i < 40; i++) {
+            arena.set(handle, i, 1 + i % 4, true);
+        }
+        arena.free(handle);
+
+        // Same size class (32 bytes), so the free list hands the slot back
+        long reused = arena.allocate(50);
+        assertEquals(handle, reused);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(0, arena.get(reused, i));
+            assertFalse(arena.isDirty(reused, i));
+        }
+
+        // A different size class gets a slot of its own
+        assertNotEquals(handle, arena.allocate(40));
+        assertNotEquals(handle >>> 32, arena.allocate(200) >>> 32);
+    }
+
+    @Test
+    void reservedMemoryIsCapped() {
+        // One chunk in total, across every size class
+        SessionAnswerArena arena = new SessionAnswerArena(CHUNK_BYTES, CHUNK_BYTES);
+        long handle = arena.allocate(MAX_QUESTIONS);
+        assertThrows(RuntimeException.class, () -> arena.allocate(MAX_QUESTIONS));
+        assertThrows(RuntimeException.class, () -> arena.allocate(1));
+
+        // A freed slot is reused without reserving more
+        arena.free(handle);
+        arena.allocate(MAX_QUESTIONS);
+        assertEquals(1L, arena.getStats().get("vectorsInUse"));
+        assertEquals((long) CHUNK_BYTES, arena.getStats().get("reservedBytes"));
+    }
+
+    @Test
+    void encodeAndDecodeAnswers() {
+        assertEquals(0, SessionAnswerArena.encode(null));
+        assertNull(SessionAnswerArena.decode(0));
+        for (String answer : new String[]{"A", "B", "C", "D"}) {
+            int value = SessionAnswerArena.encode(answer);
+            assertTrue(value >= 1 && value <= 4);
+            assertEquals(answer, SessionAnswerArena.decode(value));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.examportal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Timers must fire on exactly the tick of their deadline, whichever level they were placed in and however
+// many times they were cascaded on the way down.
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+    // Ticks covered by the four levels; anything further out goes to the overflow list
+    private static final long WHEEL_SPAN = 1L << 24;
+
+    @Test
+    void firesOnTheDeadlineTick() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 5 * TICK);
+
+        assertEquals(List.of(), wheel.advance(4 * TICK));
+        assertEquals(List.of(1L), wheel.advance(5 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesRoundUpToTheNextTick() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 5 * TICK + 1);
+
+        assertEquals(List.of(), wheel.advance(5 * TICK + 999));
+        assertEquals(List.of(1L), wheel.advance(6 * TICK));
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextTick() {
+        TimingWheel wheel = new TimingWheel(TICK, 100 * TICK);
+        wheel.schedule(1, 3 * TICK);
+
+        assertEquals(List.of(), wheel.advance(100 * TICK + 999));
+        assertEquals(List.of(1L), wheel.advance(101 * TICK));
+    }
+
+    @Test
+    void cancelledAndRescheduledTimers() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 10 * TICK);
+        wheel.schedule(2, 10 * TICK);
+        wheel.schedule(3, 10 * TICK);
+        assertTrue(wheel.cancel(2));
+        assertFalse(wheel.cancel(2));
+        // Moved from level 0 to level 1
+        wheel.schedule(3, 500 * TICK);
+
+        assertEquals(List.of(1L), wheel.advance(10 * TICK));
+        assertEquals(List.of(), wheel.advance(499 * TICK));
+        assertEquals(List.of(3L), wheel.advance(500 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesThroughEveryLevelOnSlotBoundaries() {
+        long start = 123_456_789L;
+        TimingWheel wheel = new TimingWheel(TICK, start * TICK);
+        Map<Long, Long> deadlines = new HashMap<>();
+        long key = 0;
+        // Exactly on and either side of the level 1, 2 and 3 boundaries, from an unaligned start
+        for (long boundary : new long[]{64, 4096, 262_144}) {
+            long aligned = (start / boundary + 1) * boundary;
+            for (long tick = aligned - 1; tick <= aligned + 1; tick++) {
+                deadlines.put(key, tick);
+                wheel.schedule(key++, tick * TICK);
+            }
+        }
+        assertFiresExactly(wheel, deadlines, start, start + 300_000);
+    }
+
+    @Test
+    void randomTimersFireExactlyOnTheirTick() {
+        Random random = new Random(7);
+        long start = 987_654L;
+        TimingWheel wheel = new TimingWheel(TICK, start * TICK);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long key = 0; key < 5000; key++) {
+            long tick = start + 1 + (random.nextBoolean() ? random.nextInt(200) : random.nextInt(300_000));
+            deadlines.put(key, tick);
+            wheel.schedule(key, tick * TICK);
+        }
+        // Some are cancelled or moved before they fire
+        for (long key = 0; key < 5000; key += 7) {
+            if (random.nextBoolean()) {
+                assertTrue(wheel.cancel(key));
+                deadlines.remove(key);
+            } else {
+                long tick = start + 1 + random.nextInt(300_000);
+                deadlines.put(key, tick);
+                wheel.schedule(key, tick * TICK);
+            }
+        }
+        assertFiresExactly(wheel, deadlines, start, start + 300_001);
+    }
+
+    @Test
+    void overflowTimersFireAfterTheTopLevelWraps() {
+        TimingWheel wheel = new TimingWheel(1, 0);
+        long[] deadlines = {WHEEL_SPAN - 1, WHEEL_SPAN, WHEEL_SPAN + 100, 3 * WHEEL_SPAN + 5};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        for (int i = 0; i < deadlines.length; i++) {
+            assertEquals(List.of(), wheel.advance(deadlines[i] - 1), "before deadline " + i);
+            assertEquals(List.of((long) i), wheel.advance(deadlines[i]), "at deadline " + i);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overflowTimerCanBeCancelled() {
+        TimingWheel wheel = new TimingWheel(1, 0);
+        wheel.schedule(1, 2 * WHEEL_SPAN);
+        wheel.schedule(2, 2 * WHEEL_SPAN);
+        assertTrue(wheel.cancel(1));
+
+        assertEquals(List.of(2L), wheel.advance(2 * WHEEL_SPAN));
+        assertEquals(0, wheel.size());
+    }
+
+    // Advances one tick at a time, checking that each timer fires on its own tick and no other
+    private static void assertFiresExactly(TimingWheel wheel, Map<Long, Long> deadlines, long from, long to) {
+        Map<Long, List<Long>> byTick = new HashMap<>();
+        deadlines.forEach((key, tick) -> byTick.computeIfAbsent(tick, t -> new ArrayList<>()).add(key));
+        for (long tick = from + 1; tick <= to; tick++) {
+            List<Long> fired = new ArrayList<>(wheel.advance(tick * TICK));
+            List<Long> expected = new ArrayList<>(byTick.getOrDefault(tick, List.of()));
+            fired.sort(null);
+            expected.sort(null);
+            assertEquals(expected, fired, "tick " + tick);
+        }
+        assertEquals(0, wheel.size());
+    }
+}
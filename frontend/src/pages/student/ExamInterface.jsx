@@ -24,11 +24,11 @@ const ExamInterface = () => {
     queryFn: () => studentAPI.getExam(examId),
   });
 
-  // Fetch questions for this exam
+  // Fetch this session's paper; pooled exams only accept answers to the session's own draw
   const { data: questions = [], isLoading: questionsLoading } = useQuery({
-    queryKey: ['examQuestions', examId],
-    queryFn: () => studentAPI.getExamQuestions(examId),
-    enabled: examStarted,
+    queryKey: ['sessionQuestions', examSession?.id],
+    queryFn: () => studentAPI.getSessionQuestions(examSession.id),
+    enabled: examStarted && !!examSession,
   });
 
   // Start exam mutation
@@ -48,7 +48,7 @@ const ExamInterface = () => {
   // Submit answer mutation
   const submitAnswerMutation = useMutation({
     mutationFn: ({ questionId, selectedAnswer }) => 
-      studentAPI.submitAnswer(examSession.id, { questionId, selectedAnswer }),
+      studentAPI.submitAnswer(examSession.id, { questionId, selectedAnswer, shuffled: true }),
   });
 
   // Submit exam mutation
@@ -37,6 +37,8 @@ api.interceptors.response.use(
       Cookies.remove('refreshToken');
       Cookies.remove('user');
       window.location.href = '/admin/login';
+    } else if (error.response?.status === 429) {
+      // Queued by admission control; the caller retries with its ticket
     } else if (error.response?.status === 403) {
       // Forbidden - insufficient permissions
       toast.error('Access denied. Insufficient permissions.');
@@ -161,6 +163,29 @@ export const adminAPI = {
   getRecentResults: (limit = 10) => api.get(`/admin/results/recent?limit=${limit}`).then(response => response.data),
 };
 
+// Exam starts may be queued (429 + ticket); wait out the Retry-After and try again with the ticket
+const startExamWithQueue = async (examId, ticket) => {
+  try {
+    return await api.post(`/student/exams/${examId}/start`, null, {
+      headers: ticket ? { 'X-Queue-Ticket': ticket } : {},
+    });
+  } catch (error) {
+    if (error.response?.status !== 429) {
+      throw error;
+    }
+    const { ticket: nextTicket, retryAfterMs } = error.response.data;
+    await new Promise((resolve) => setTimeout(resolve, retryAfterMs || 1000));
+    return startExamWithQueue(examId, nextTicket);
+  }
+};
+
+// Per-write sequence number for X-Client-Seq; time based so it keeps increasing across page reloads
+let lastClientSeq = 0;
+const nextClientSeq = () => {
+  lastClientSeq = Math.max(Date.now(), lastClientSeq + 1);
+  return lastClientSeq;
+};
+
 // Student API
 export const studentAPI = {
   // Dashboard
@@ -179,7 +204,7 @@ export const studentAPI = {
     console.log('Student Exam Details API Response:', response.data);
     return response.data;
   }),
-  startExam: (examId) => api.post(`/student/exams/${examId}/start`).then(response => {
+  startExam: (examId) => startExamWithQueue(examId).then(response => {
     console.log('Start Exam API Response:', response.data);
     return response.data;
   }),
@@ -187,20 +212,27 @@ export const studentAPI = {
     console.log('Student Exam Questions API Response:', response.data);
     return Array.isArray(response.data) ? response.data : response.data.data || response.data;
   }),
+  // The session's own paper: its drawn questions in its question and option order
+  getSessionQuestions: (sessionId) => api.get(`/student/exam-sessions/${sessionId}/questions`).then(response => response.data),
   getExamSession: (sessionId) => api.get(`/student/exam-sessions/${sessionId}`).then(response => {
     console.log('Exam Session API Response:', response.data);
     return response.data;
   }),
   
   // Answers
-  submitAnswer: (sessionId, data) => api.post(`/student/exam-sessions/${sessionId}/answers`, data).then(response => {
+  submitAnswer: (sessionId, data) => api.post(`/student/exam-sessions/${sessionId}/answers`, data, {
+    headers: { 'X-Client-Seq': nextClientSeq() },
+  }).then(response => {
     console.log('Submit Answer API Response:', response.data);
     return response.data;
   }),
-  submitExam: (sessionId) => api.post(`/student/exam-sessions/${sessionId}/submit`).then(response => {
+  submitExam: (sessionId) => api.post(`/student/exam-sessions/${sessionId}/submit`, null, {
+    headers: { 'Idempotency-Key': `submit-${sessionId}` },
+  }).then(response => {
     console.log('Submit Exam API Response:', response.data);
     return response.data;
   }),
+  getSubmissionResult: (sessionId, waitSeconds = 20) => api.get(`/student/exam-sessions/${sessionId}/result`, { params: { waitSeconds } }).then(response => response.data),
   
   // Results
   getResults: () => api.get('/student/results').then(response => {